@@ -0,0 +1,117 @@
+/**
+ * This class saves the game in play on a background thread so writing the
+ * file never holds up input. Every change hands over a fresh GameSnapshot
+ * and restarts a short timer; the file is only written once the changes
+ * have stopped for DELAY milliseconds, so fast typing writes it once. All
+ * writes and deletes run in order on one thread.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class AutoSaver {
+    private static final long DELAY = 500; // Milliseconds without changes before saving
+
+    private final File file;
+    private final ScheduledExecutorService saveThread = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "autosave");
+        thread.setDaemon(true); // Does not keep the application open
+        return thread;
+    });
+    private GameSnapshot pending; // Latest snapshot not yet written
+    private ScheduledFuture<?> scheduled;
+    private boolean cleared; // The save was deleted, or its delete is still queued
+
+    AutoSaver(File file) {
+        this.file = file;
+    }
+
+    /*
+     * Called on the FX thread after every change with a snapshot of the game
+     */
+    public synchronized void changed(GameSnapshot snapshot) {
+        pending = snapshot;
+        cleared = false;
+        if (scheduled != null)
+            scheduled.cancel(false);
+        scheduled = saveThread.schedule(this::write, DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Writes any pending snapshot now and waits for it, used when the window closes
+     */
+    public void flush() {
+        synchronized (this) {
+            if (scheduled != null)
+                scheduled.cancel(false);
+        }
+        try {
+            saveThread.submit(this::write).get(2, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            // The last completed save is still on disk
+        }
+    }
+
+    /*
+     * Drops any pending snapshot and deletes the save, used when a game is finished
+     */
+    public synchronized void clear() {
+        pending = null;
+        cleared = true;
+        if (scheduled != null)
+            scheduled.cancel(false);
+        saveThread.execute(() -> {
+            try {
+                Files.deleteIfExists(file.toPath());
+            }
+            catch (IOException ex) {
+                // A save that cannot be deleted is replaced by the next game
+            }
+        });
+    }
+
+    /*
+     * Returns true if there is a saved game to continue. A cleared save
+     * counts as gone at once, before the save thread has deleted it
+     */
+    public synchronized boolean hasSave() {
+        return !cleared && file.exists();
+    }
+
+    /*
+     * Returns the saved game, or null if there is none
+     */
+    public GameSnapshot load() {
+        return GameSnapshot.load(file);
+    }
+
+    /*
+     * Runs on the save thread. Writes the latest snapshot if there is one
+     */
+    private void write() {
+        GameSnapshot snapshot;
+        synchronized (this) {
+            snapshot = pending;
+            pending = null;
+        }
+        if (snapshot == null)
+            return;
+
+        try {
+            snapshot.save(file);
+        }
+        catch (IOException ex) {
+            // Autosave is best effort; the next change tries again
+        }
+    }
+}
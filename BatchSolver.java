@@ -0,0 +1,308 @@
+/**
+ * This class is a command line entry point beside Main that solves puzzle files
+ * without the GUI. Puzzles are streamed from the listed files, or from standard
+ * input if none are listed, and solved in chunks across all cores. Each output
+ * line holds the puzzle number, the solution (or none / invalid / timeout) and
+ * the solve time in microseconds. With a checkpoint file the number of finished
+ * puzzles and the length of the output are saved after every chunk, so an
+ * interrupted run started again with the same arguments cuts off any output
+ * written after the last checkpoint, skips what is done and appends. With -v
+ * every chunk is first checked by a CandidateScanner so puzzles with repeated
+ * values or dead cells are reported invalid without being searched.
+ *
+ * Usage: java sudoku.BatchSolver [-o output] [-c checkpoint] [-b dlx|propagation]
+ *                                [-t threads] [-l timeout ms] [-v] [file ...]
+ */
+
+package sudoku;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchSolver {
+    private static final int CHUNK = 4096; // Puzzles solved between checkpoints
+
+    private final ExecutorService pool;
+    private final int threads;
+    private final ThreadLocal<SudokuSolver> solvers; // Each worker thread reuses its own backend
+    private final Writer output;
+    private final File checkpoint;
+    private CandidateScanner scanner; // Checks every chunk first if validation is on
+    private long done; // Puzzles finished, including those skipped from a checkpoint
+    private long solved;
+    private long written; // Bytes of output, saved with the checkpoint
+
+    BatchSolver(Writer output, File checkpoint, String backend, int threads, long timeout) {
+        this.output = output;
+        this.checkpoint = checkpoint;
+        this.threads = threads;
+        pool = Executors.newFixedThreadPool(threads);
+        solvers = ThreadLocal.withInitial(() -> {
+            SudokuSolver solver = backend.equals("dlx") ? new DancingLinksSolver() : new SolverEngine();
+            solver.setTimeout(timeout);
+            return solver;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String outputName = null, checkpointName = null, backend = "propagation";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeout = 10000;
+        boolean validate = false;
+        ArrayList<String> inputs = new ArrayList<>();
+
+        for (int a = 0; a < args.length; a++) {
+            // Every option but -v is followed by its value
+            if (args[a].startsWith("-") && !args[a].equals("-v") && a + 1 == args.length)
+                usage();
+
+            switch (args[a]) {
+                case "-o":
+                    outputName = args[++a];
+                    break;
+                case "-c":
+                    checkpointName = args[++a];
+                    break;
+                case "-b":
+                    backend = args[++a];
+                    break;
+                case "-t":
+                    threads = parseNumber(args[++a]);
+                    break;
+                case "-l":
+                    timeout = parseNumber(args[++a]);
+                    break;
+                case "-v":
+                    validate = true;
+                    break;
+                default:
+                    if (args[a].startsWith("-"))
+                        usage();
+                    inputs.add(args[a]);
+            }
+        }
+
+        // Resuming appends to the output, so it has to be a file
+        if (checkpointName != null && outputName == null) {
+            System.err.println("A checkpoint (-c) requires an output file (-o)");
+            System.exit(2);
+        }
+
+        File checkpoint = checkpointName == null ? null : new File(checkpointName);
+        long[] resumed = readCheckpoint(checkpoint);
+        long skip = resumed[0];
+        // A chunk written after the last checkpoint is solved and written again
+        if (skip > 0 && resumed[1] >= 0 && new File(outputName).exists()) {
+            try (FileChannel file = FileChannel.open(new File(outputName).toPath(), StandardOpenOption.WRITE)) {
+                file.truncate(resumed[1]);
+            }
+        }
+        Writer output = outputName == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out))
+                : new BufferedWriter(new FileWriter(outputName, skip > 0));
+
+        BatchSolver batch = new BatchSolver(output, checkpoint, backend, threads, timeout);
+        // Without a recorded length the output was kept whole, so counting goes on from its end
+        if (skip > 0)
+            batch.written = resumed[1] >= 0 ? resumed[1] : new File(outputName).length();
+        if (validate)
+            batch.scanner = CandidateScanner.create();
+        long start = System.nanoTime();
+
+        try {
+            if (inputs.isEmpty())
+                skip = batch.run(new PuzzleReader(new InputStreamReader(System.in)), skip);
+            else {
+                for (String input : inputs) {
+                    try (PuzzleReader reader = new PuzzleReader(new FileReader(input))) {
+                        skip = batch.run(reader, skip);
+                    }
+                }
+            }
+        }
+        finally {
+            batch.pool.shutdown();
+            output.flush();
+            if (outputName != null)
+                output.close();
+        }
+
+        System.err.printf("%d puzzles, %d solved, %.1f s%n", batch.done, batch.solved,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /*
+     * Parses the number after -t or -l, or stops with the usage line
+     */
+    private static int parseNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException ex) {
+            usage();
+            return 0;
+        }
+    }
+
+    /*
+     * Prints how to run the batch solver and exits
+     */
+    private static void usage() {
+        System.err.println("Usage: java sudoku.BatchSolver [-o output] [-c checkpoint] [-b dlx|propagation]"
+                + " [-t threads] [-l timeout ms] [-v] [file ...]");
+        System.exit(2);
+    }
+
+    /*
+     * Solves every puzzle from the reader after skipping the first skip
+     * puzzles. Returns how many still have to be skipped in the next input
+     */
+    private long run(PuzzleReader reader, long skip) throws IOException, InterruptedException {
+        long skipped = reader.skip(skip);
+        done += skipped;
+
+        ArrayList<int[]> chunk = new ArrayList<>(CHUNK);
+        int[] puzzle;
+        while ((puzzle = reader.next()) != null) {
+            chunk.add(puzzle);
+            if (chunk.size() == CHUNK) {
+                solveChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            solveChunk(chunk);
+
+        return skip - skipped;
+    }
+
+    /*
+     * Solves a chunk on all worker threads, writes the results in input order
+     * and then saves the checkpoint
+     */
+    private void solveChunk(ArrayList<int[]> chunk) throws IOException, InterruptedException {
+        String[] results = new String[chunk.size()];
+        boolean[] valid = validateChunk(chunk);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger chunkSolved = new AtomicInteger();
+        ArrayList<Future<?>> workers = new ArrayList<>();
+
+        // Every worker takes the next unsolved puzzle until the chunk is used up
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                SudokuSolver solver = solvers.get();
+                for (int p = next.getAndIncrement(); p < results.length; p = next.getAndIncrement()) {
+                    long start = System.nanoTime();
+                    String result = valid[p] ? solve(solver, chunk.get(p)) : "invalid";
+                    long micros = (System.nanoTime() - start) / 1000;
+
+                    if (result.length() == SolverEngine.CELLS)
+                        chunkSolved.incrementAndGet();
+                    results[p] = (done + p + 1) + "\t" + result + "\t" + micros;
+                }
+            }));
+        }
+
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            }
+            catch (ExecutionException ex) {
+                throw new IOException(ex.getCause());
+            }
+        }
+
+        // The lines are ASCII, so every char is one byte
+        for (String result : results) {
+            output.write(result);
+            output.write('\n');
+            written += result.length() + 1;
+        }
+        output.flush();
+
+        done += results.length;
+        solved += chunkSolved.get();
+        writeCheckpoint();
+    }
+
+    /*
+     * Scans the whole chunk at once when validation is on. Without it every
+     * puzzle is marked valid and left to the solver to reject
+     */
+    private boolean[] validateChunk(ArrayList<int[]> chunk) {
+        boolean[] valid = new boolean[chunk.size()];
+        if (scanner == null) {
+            Arrays.fill(valid, true);
+            return valid;
+        }
+
+        int[] grids = new int[chunk.size() * SolverEngine.CELLS];
+        for (int p = 0; p < chunk.size(); p++)
+            System.arraycopy(chunk.get(p), 0, grids, p * SolverEngine.CELLS, SolverEngine.CELLS);
+
+        scanner.scan(grids, chunk.size(), new int[grids.length], valid);
+        return valid;
+    }
+
+    /*
+     * Solves a single puzzle and returns its solution line or the reason it failed
+     */
+    private static String solve(SudokuSolver solver, int[] puzzle) {
+        try {
+            if (!solver.load(puzzle))
+                return "invalid";
+            if (!solver.solve())
+                return "none";
+            return PuzzleReader.toLine(solver.getGrid());
+        }
+        catch (TimeoutException ex) {
+            return "timeout";
+        }
+    }
+
+    /*
+     * Returns the number of puzzles finished by an earlier run and the length
+     * of its output at that point. Both are 0 if there is no checkpoint, and
+     * the length is -1 in a checkpoint that did not record it
+     */
+    private static long[] readCheckpoint(File checkpoint) throws IOException {
+        if (checkpoint == null || !checkpoint.exists())
+            return new long[] {0, 0};
+
+        String[] fields = new String(Files.readAllBytes(checkpoint.toPath())).trim().split("\\s+");
+        return new long[] {Long.parseLong(fields[0]), fields.length > 1 ? Long.parseLong(fields[1]) : -1};
+    }
+
+    /*
+     * Saves the number of finished puzzles and the length of the output. The
+     * new values are written to a temporary file first so an interrupted
+     * write never loses the old ones
+     */
+    private void writeCheckpoint() throws IOException {
+        if (checkpoint == null)
+            return;
+
+        File temp = new File(checkpoint.getPath() + ".tmp");
+        Files.write(temp.toPath(), (done + " " + written).getBytes());
+        Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -2,45 +2,51 @@
  * This class contains all the methods related to getting,
  * creating and displaying the Sudoku Board. There are also
  * several helper methods to make code a little more
- * concise that are reused elsewhere.
+ * concise that are reused elsewhere. The GridPane and Cells
+ * of each board size are only built once, and every new
+ * board is put on the same Cells. Boards of 16x16 and up are
+ * drawn on a BoardCanvas instead of a GridPane of buttons.
  */
 
 package sudoku;
 
+import javafx.application.Platform;
+import javafx.scene.Node;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.InputMismatchException;
-import java.util.Scanner;
 
 public class Board extends GridPane{
     public UndoRedoController undoRedoController;
+	private static BoardLayout layout = BoardLayout.STANDARD; // Size of the current board
+	private static int solverBoxSize = 3; // Box size chosen for the solver board
 	private static Cell[][] board = new Cell[9][9]; // The board itself
+	private static final int CANVAS_BOX_SIZE = 4; // Smallest box size drawn on a BoardCanvas
+	// The GridPane or BoardCanvas and the Cells of each box size, built the first time that size is shown
+	private static final Node[] views = new Node[BoardLayout.MAX_BOX_SIZE + 1];
+	private static final Cell[][][] cellSets = new Cell[BoardLayout.MAX_BOX_SIZE + 1][][];
+	private static int generation; // Counts the boards put on the Cells
+	private static UnitCounters counters = new UnitCounters(BoardLayout.STANDARD); // Value counts of the board
 	private boolean doneChecked = false;
-	private int boardNumber;
-	// List of the possible boards for each difficulty
-	private static ArrayList<ArrayList<Integer>> attemptedBoardNumbers;
+	private boolean refreshScheduled = false; // A redraw of the changed Cells is waiting to run
+	private final PuzzlePool pool = new PuzzlePool(); // Ready puzzles for each difficulty
+	private Puzzle puzzle; // The current puzzle, null for an empty board
+	private Runnable onEdit; // Called after every change to a played board, for autosave
 	private static int difficulty;
     private String title;
 
 	Board() {
 		undoRedoController = new UndoRedoController();
-		attemptedBoardNumbers  = new ArrayList<>();
-
-		// Initialize the lists with boards 1-20 for each difficulty
-		for (int i = 0; i < 3; i++) {
-            ArrayList<Integer> initialList = new ArrayList<>();
-            for (int k = 1; k <= 20; k++) {
-                initialList.add(Integer.valueOf(k));
-            }
-            attemptedBoardNumbers.add(initialList);
-        }
+		// The Cells are built by the first getBoard(), not before the Main Menu is shown
+    }
 
-        getBoard(0, false);
+    /*
+     * Starts filling the puzzle pool in the background. Called once the
+     * first frame is shown so the pool does not compete with startup
+     */
+    public void startPool() {
+        pool.start();
     }
 
     /*
@@ -52,203 +58,226 @@ public class Board extends GridPane{
 	}
 
 	/*
-	 * This is an extensive method that creates the GridPane containing
-	 * the board as well as populate it with the initial values and
-	 * handlers.
+	 * This is an extensive method that returns the GridPane or BoardCanvas
+	 * containing the board as well as populate it with the initial values
+	 * and handlers.
 	 */
-	public GridPane getBoard(int difficulty, boolean solver) {
+	public Node getBoard(int difficulty, boolean solver) {
 		// Passing a difficulty will get a new board of the requested difficulty
         if (difficulty > 0) {
             this.difficulty = difficulty;
-
-            // If possible, gets a random boardNumber of the requested difficulty
-            ArrayList<Integer> thisList = attemptedBoardNumbers.get(difficulty-1);
-            if (thisList.size() > 0) {
-				boardNumber = thisList.get((int) (Math.random() * thisList.size()));
-				thisList.remove(Integer.valueOf(boardNumber));
-			}
+            // Already read or generated, and solved, on the pool's thread
+            puzzle = pool.take(difficulty);
         }
         // Difficulty 0 is an empty board
-        else if (difficulty == 0)
+        else if (difficulty == 0) {
             this.difficulty = difficulty;
+            puzzle = null;
+        }
         // else difficulty -1 will return the current initial board
 
+        // Only the solver supports other sizes; the puzzle files are all 9x9
+        layout = solver ? BoardLayout.of(solverBoxSize) : BoardLayout.STANDARD;
+        if (views[layout.boxSize] == null)
+            createView();
+        board = cellSets[layout.boxSize];
+
         doneChecked = false;
+        generation++;
+        if (counters.getLayout() != layout)
+            counters = new UnitCounters(layout);
+        // Nothing stays selected, and nothing can be undone, across boards
+        if (SudokuButton.selected != null)
+            SudokuButton.selected.updateSelected(null);
+        undoRedoController.clear();
+
+        // The title is based on the difficulty and board number
+        if (puzzle != null)
+            title = puzzle.getTitle();
+
+		for (int i = 0; i < layout.size; i++) {
+			for (int j = 0; j < layout.size; j++) {
+				// Puts the value of the chosen puzzle on the Cell, 0 for an empty board
+				int value = puzzle == null ? 0 : puzzle.getValue(i, j);
+				board[i][j].reset(value, solver);
+			 	counters.set(i * layout.size + j, value);
+			}
+		}
 
-        int[][] boardValues = getBoardValues(); // get the values of the chosen boardNumber
+		// Check solution is called to initialize the possible Tooltip values
+		checkSolution(solver);
+
+		return views[layout.boxSize];
+	}
+
+	/*
+	 * Creates the Cells for the current layout and the GridPane or
+	 * BoardCanvas that shows them. Their handlers are added here once,
+	 * as the Cells are reused for every board
+	 */
+	private void createView() {
+		Cell[][] cells = new Cell[layout.size][layout.size];
+
+		// The larger boards keep the Cells out of the scene graph and draw them instead
+		if (layout.boxSize >= CANVAS_BOX_SIZE) {
+			for (int i = 0; i < layout.size; i++) {
+				for (int j = 0; j < layout.size; j++)
+					cells[i][j] = new Cell(i, j, this);
+			}
+
+			BoardCanvas canvas = new BoardCanvas(layout, Math.floor(getCellSize()));
+			canvas.show(cells);
+			views[layout.boxSize] = canvas;
+			cellSets[layout.boxSize] = cells;
+			return;
+		}
 
-		// Create the GridPane that will be returned and shown on the stage
 		GridPane boardGrid = SceneController.getBackgroundGridPane(1,1);
 		boardGrid.setGridLinesVisible(true);
+		boardGrid.getStyleClass().add("board");
 
-		for (int i = 0; i < boardValues.length; i++) {
-			for (int j = 0; j < boardValues[i].length; j++) {
-				// Create Cell with the uploaded value
-				Cell curCell = new Cell(boardValues[i][j],i,j, solver, this);
+		for (int i = 0; i < layout.size; i++) {
+			for (int j = 0; j < layout.size; j++) {
+				Cell curCell = new Cell(i, j, this);
 				curCell.setOnMouseClicked(e -> curCell.buttonClickBehavior(curCell));
-			 	curCell.setBlockBorders(i, j);
 			 	curCell.setOnMouseDragReleased(e -> curCell.onDragReleased());
 				boardGrid.add(curCell,j,i); // Add to column i, row j of the board
-			 	board[i][j] = curCell;
+			 	cells[i][j] = curCell;
 			}
 		}
 
-		// Check solution is called to initialize the possible Tooltip values
-		checkSolution(solver);
+		views[layout.boxSize] = boardGrid;
+		cellSets[layout.boxSize] = cells;
+	}
 
-		return boardGrid;
+	/*
+	 * Returns the number of boards put on the Cells so far. A result that
+	 * arrives for an older number belongs to a board that is gone
+	 */
+	public static int getGeneration() {
+		return generation;
 	}
 
 	/*
-	 * This method finds in the correct file and returns the 2D int
-	 * array of values for the initial board. It also sets the Board
-	 * title based on the difficulty and board number
+	 * Returns the title of the current Board
 	 */
-	private int[][] getBoardValues() throws InputMismatchException{
-		int[][] boardValues = new int[9][9];
-
-		File boardFile;
-		switch (difficulty) {
-			case 1:
-				boardFile = new File("easy-puzzles.txt");
-				title = "Easy - " + boardNumber;
-				break;
-			case 2:
-				boardFile = new File("medium-puzzles.txt");
-                title = "Medium - " + boardNumber;
-                break;
-			case 3:
-				boardFile = new File("hard-puzzles.txt");
-                title = "Hard - " + boardNumber;
-                break;
-			default:
-				return new int[9][9]; // empty board for difficulty 0
-		}
+	public String getTitle() {
+		return title;
+	}
 
-		// Try with resources to open and read from teh boardFile of determined difficutly
-		try (Scanner fileReader = new Scanner(boardFile)) {
-            String clear; // used to skip n number of lines in the file to the correct board
+	/*
+	 * Returns the current puzzle, which holds its solution, or null if
+	 * the board is empty
+	 */
+	public Puzzle getPuzzle() {
+		return puzzle;
+	}
 
-			// loop to skip lines until the correct starting board
-			for (int f = 0; f <= (boardNumber - 1)* 10; f++) {
-				clear = fileReader.nextLine();
+	/*
+	 * Sets the puzzle of a restored game, which getBoard(-1, false) then builds
+	 */
+	public void setPuzzle(Puzzle puzzle) {
+		this.puzzle = puzzle;
+		difficulty = puzzle.getDifficulty();
+	}
 
-				// does not count empty lines, but the line has already been cleared
-				if (clear.trim().length() == 0)
-					f--;
-			}
+	/*
+	 * Sets the handler called after every change to a played board
+	 */
+	public void setOnEdit(Runnable onEdit) {
+		this.onEdit = onEdit;
+	}
 
-			// Read integers from the board file until the board is filled
-			// (including zeroes)
-			for (int i = 0; i < 9; i++) {
-				for (int j = 0; j < 9; j++) {
-					boardValues[i][j] = fileReader.nextInt();
-				}
-			}
-		}
-		// If the file is not found, it will exit the application
-		// TODO add default board and/or board generator
-		catch (FileNotFoundException ex) {
-			System.out.println("file not found");
-			System.exit(1);
-		}
-		// InputMisMatchException means something is wrong with the board file
-		catch (InputMismatchException ex1) {
-		    throw ex1;
-        }
-		finally {
-			return boardValues;
-		}
+	/*
+	 * Called by Cells after their value changes in play mode
+	 */
+	public void edited() {
+		if (onEdit != null)
+			onEdit.run();
+	}
+
+	/*
+	 * Called by Cells whenever their value changes so the counts stay in
+	 * step with the board
+	 */
+	public void valueChanged(Cell cell) {
+		counters.set(cell.getRow() * layout.size + cell.getColumn(), cell.getValue());
 	}
 
 	/*
 	 * Checks if the current board is a valid solution. It is also called
-	 * to remove impossible values from every Cell's possible list.
+	 * to remove impossible values from every Cell's possible values. The
+	 * validity of each Cell comes from the running counts, so no Cell has
+	 * to be compared with its peers
 	 */
 	public boolean checkSolution(boolean solver ) {
-		boolean allValid = true, curValid;
-		Cell curCell;
-
-		for (int i = 0; i < 9; i++) {
-			for (int j = 0; j < 9; j++) {
-				curCell = board[i][j];
-
-				// Called to update possible
-				boolean temp = checkRelatedValues(curCell, i, j);
-
-				// An empty Cell in player mode returns false so the background can be highlighted
-                if (curCell.getValue() == 0 && !solver)
-					curValid = false;
-				// An empty Cell in solver mode returns true so the background is not highlighted
-				else if (curCell.getValue() == 0 && solver)
-					curValid = true;
-				// If the Cell is not empty, it checks for validity using rules of Sudoku
-				else
-					curValid = temp;
-
-				// Updates the background if applicable
-				if ((doneChecked && difficulty != 3) || solver)
-					board[i][j].updateBackground(curValid);
-
-				// Separate boolean saying the whole board is invalid even if the last Cell is
-				if (!curValid) {
-					allValid = false;
-				}
+		for (int i = 0; i < layout.size; i++) {
+			for (int j = 0; j < layout.size; j++) {
+				refreshCell(i, j, solver);
 			}
 		}
+		// Every Cell is up to date, including any a pending refresh would redraw
+		counters.clearDirty();
 
-		return allValid;
+		// Empty Cells only make the board invalid in player mode
+		return solver ? !counters.hasConflicts() : counters.isComplete();
 	}
 
 	/*
-	 * This method checks the validity of a Cell's value by comparing it to the
-	 * values of Cells in the same row, column and bow. It also updates the
-	 * possible values for the current Cell
+	 * Called after an edit. Only the Cells whose validity or possible values
+	 * the edit may have changed, the edited Cell and its peers, are redrawn.
+	 * The redraw runs once after the current event, so a burst of edits such
+	 * as several undos or hints reaches the scene graph together
 	 */
-	public static boolean checkRelatedValues(Cell curCell, int i, int j) {
-		int curValue = curCell.getValue(), boxRow = findBoxStartingPoint(i), boxColumn = findBoxStartingPoint(j);
-		boolean valid = true;
-
-		// Reset possible values in case some were added
-		curCell.resetPossible();
-
-		for (int k = 0; k < 9; k++) {
-			// Check each number in the current row
-			if (curValue == board[i][k].getValue() && k != j)
-				valid = false;
-
-            // Remove each number in the current row
-            curCell.possible.remove(Integer.valueOf(board[i][k].getValue()));
-
-			// Check each number in the current column
-			if (curValue == board[k][j].getValue() && k != i)
-				valid = false;
-
-            // Remove each number in the current column
-            curCell.possible.remove(Integer.valueOf(board[k][j].getValue()));
+	public void refreshChanged(boolean solver) {
+		if (refreshScheduled)
+			return;
+
+		refreshScheduled = true;
+		Platform.runLater(() -> {
+			refreshScheduled = false;
+			counters.drainDirty(cell -> refreshCell(cell / layout.size, cell % layout.size, solver));
+		});
+	}
 
-			// Check each number in the current box
-			if (curValue == board[boxRow][boxColumn].getValue()
-					&& boxRow != i && boxColumn != j)
-				valid = false;
+	/*
+	 * Updates the possible values and, if applicable, the background of one Cell
+	 */
+	private void refreshCell(int i, int j, boolean solver) {
+		Cell curCell = board[i][j];
+		boolean curValid;
+
+		// Called to update possible
+		boolean temp = checkRelatedValues(curCell, i, j);
+
+		// An empty Cell in player mode returns false so the background can be highlighted
+		if (curCell.getValue() == 0 && !solver)
+			curValid = false;
+		// An empty Cell in solver mode returns true so the background is not highlighted
+		else if (curCell.getValue() == 0 && solver)
+			curValid = true;
+		// If the Cell is not empty, it checks for validity using rules of Sudoku
+		else
+			curValid = temp;
 
-            // Remove each number in the current box
-            curCell.possible.remove(Integer.valueOf(board[boxRow][boxColumn].getValue()));
+		// Updates the background if applicable
+		if ((doneChecked && difficulty != 3) || solver)
+			curCell.updateBackground(curValid);
+	}
 
-            // If-else block to increment boxRow and boxColumn properly to check all 8
-			// values in the same box
-			if (boxColumn % 3 == 2) {
-				boxColumn -= 2;
-				boxRow++;
-			}
-			else
-				boxColumn++;
-		}
+	/*
+	 * This method returns the validity of a Cell's value, meaning it is not
+	 * repeated in the same row, column or box. It also updates the possible
+	 * values for the current Cell. Both come from the running counts
+	 */
+	public static boolean checkRelatedValues(Cell curCell, int i, int j) {
+		int cell = i * layout.size + j;
 
-		// Updates the tooltip of each empty Cell
-        curCell.updateTooltip();
+		// Possible values are the values missing from the row, column and box.
+		// The Cell only updates its tooltip if they changed
+		curCell.setCandidates(counters.getCandidates(cell));
 
-		return valid;
+		return counters.isValid(cell);
 	}
 
 	/*
@@ -260,8 +289,8 @@ public class Board extends GridPane{
 
 		// If complet solution is valid, all Cells cannot be updated
 		if (complete) {
-		    for (int i = 0; i <9; i++) {
-		        for (int j = 0; j < 9; j++) {
+		    for (int i = 0; i < layout.size; i++) {
+		        for (int j = 0; j < layout.size; j++) {
 		            board[i][j].setUpdateable(false);
                 }
             }
@@ -272,15 +301,46 @@ public class Board extends GridPane{
 
 	/*
 	 * Helper method to find the correct row and column starting point to
-	 * iterate inside a 3x3 box
+	 * iterate inside a box of the current board
 	 */
 	public static int findBoxStartingPoint(int cell) {
-		if (cell/3 == 0)
-			return 0;
-		else if (cell/3 == 1)
-			return 3;
-		else
-			return 6;
+		return layout.boxStart(cell);
+	}
+
+	/*
+	 * Returns the layout of the current board
+	 */
+	public static BoardLayout getLayout() {
+		return layout;
+	}
+
+	/*
+	 * Returns the number of rows and columns of the current board
+	 */
+	public static int getSize() {
+		return layout.size;
+	}
+
+	/*
+	 * Sets the box size used the next time a solver board is created
+	 */
+	public static void setSolverBoxSize(int boxSize) {
+		solverBoxSize = boxSize;
+	}
+
+	/*
+	 * Returns the box size used for solver boards
+	 */
+	public static int getSolverBoxSize() {
+		return solverBoxSize;
+	}
+
+	/*
+	 * Returns the width and height of one Cell so every board size
+	 * takes up the same space as the 9x9 board
+	 */
+	public static double getCellSize() {
+		return 450.0 / layout.size;
 	}
 
 	/*
@@ -296,10 +356,9 @@ public class Board extends GridPane{
 	 * Sets the title field with a manual title (as opposed to the
 	 * difficulty-determined one)before returning the formatted
 	 * textbox containing the title of the current Board. This is
-	 * called when all boards of this difficulty are played
+	 * called for the Play and Solver menus
      */
     public Text getTitleField(String newTitle) {
-	    boardNumber = 0;
 	    title = newTitle;
         return getTitleField();
     }
@@ -319,23 +378,11 @@ public class Board extends GridPane{
 	}
 
 	/*
-	 * Returns the number of remaining boards in the desired difficulty
-	 */
-	public static int getAttemptedBoardNumbersSize(int testDifficulty) {
-		return attemptedBoardNumbers.get(testDifficulty-1).size();
-	}
-
-	/*
-	 * Finds the difficulty used when Random is clicked. It is recursive
-	 * to loop until it selects a difficulty that is not empty.
-	 * TODO all 60 boards played then random is clicked will cause error
+	 * Finds the difficulty used when Random is clicked. Every difficulty
+	 * always has a board, since generated ones follow the file boards
 	 */
 	public static int getRandomDifficulty() {
-		int random = (int)(Math.random() *3) + 1;
-		if (getAttemptedBoardNumbersSize(random) > 0)
-			return random;
-		else
-			return getRandomDifficulty();
+		return (int)(Math.random() *3) + 1;
 	}
 
 	/*
@@ -346,9 +393,9 @@ public class Board extends GridPane{
 	public String toString() {
 		String s ="";
 
-		for (int i = 0; i < 9; i++) {
-			for (int j = 0; j < 9; j++) {
-				s += board[i][j].getValue();
+		for (int i = 0; i < layout.size; i++) {
+			for (int j = 0; j < layout.size; j++) {
+				s += BoardLayout.valueText(board[i][j].getValue());
 			}
 			s += "\n";
 		}
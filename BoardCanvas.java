@@ -0,0 +1,173 @@
+/**
+ * This class draws a board on a single Canvas instead of one Button node per
+ * Cell, which keeps the scene graph small on the 16x16 and 25x25 boards and
+ * draws the whole board in one pass. The grid, values, invalid backgrounds
+ * and the selected border are all drawn here.
+ *
+ * A canvas showing Cells stays in step with them: every Cell reports its
+ * changes with repaint(), the changed Cells are collected and only those are
+ * drawn again, once after the current event. Clicks and drag releases are
+ * mapped to the Cell under the mouse and passed to the same handlers the Cell
+ * buttons use, so selection, keyboard input and updateValue all work as they
+ * do on a GridPane board.
+ */
+
+package sudoku;
+
+import javafx.application.Platform;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+public class BoardCanvas extends Canvas {
+    private static final Color BACKGROUND = Color.ANTIQUEWHITE;
+    private static final Color INVALID = Color.rgb(255,150,150);
+    private static final Color ENTERED = Color.rgb(0,153,0); // Values entered by the player or solver
+
+    private final BoardLayout layout;
+    private final double cellSize; // Width and height of one Cell, without the line around it
+    private final double pitch; // Distance from one Cell to the next
+    private final Font valueFont;
+    private final GraphicsContext graphics;
+    private Cell[][] cells; // The Cells shown
+    private final boolean[] dirty; // Cells to draw again
+    private final int[] dirtyCells;
+    private int dirtyCount;
+    private boolean redrawScheduled;
+
+    BoardCanvas(BoardLayout layout, double cellSize) {
+        super(layout.size * (cellSize + 1) + 1, layout.size * (cellSize + 1) + 1);
+        this.layout = layout;
+        this.cellSize = cellSize;
+        pitch = cellSize + 1;
+        // The same text size as the Cell buttons on a 9x9 board, smaller if the Cells are
+        valueFont = Font.font("Verdana", FontWeight.BLACK, Math.min(12, cellSize / 2));
+        graphics = getGraphicsContext2D();
+        graphics.setTextAlign(TextAlignment.CENTER);
+        graphics.setTextBaseline(VPos.CENTER);
+        dirty = new boolean[layout.cells];
+        dirtyCells = new int[layout.cells];
+
+        setOnMouseClicked(e -> {
+            Cell cell = getCellAt(e.getX(), e.getY());
+            if (cell != null)
+                cell.buttonClickBehavior(cell);
+        });
+        // A FillButton dragged onto the canvas fills the Cell it is released on
+        setOnMouseDragReleased(e -> {
+            Cell cell = getCellAt(e.getX(), e.getY());
+            if (cell != null)
+                cell.onDragReleased();
+        });
+    }
+
+    /*
+     * Shows a board of Cells. The Cells report their changes to this canvas
+     */
+    public void show(Cell[][] cells) {
+        this.cells = cells;
+        for (Cell[] row : cells) {
+            for (Cell cell : row)
+                cell.setCanvas(this);
+        }
+        redrawAll();
+    }
+
+    /*
+     * Called when the look of a Cell changed. It is drawn again with the
+     * other changed Cells after the current event
+     */
+    public void repaint(int row, int column) {
+        int cell = row * layout.size + column;
+        if (!dirty[cell]) {
+            dirty[cell] = true;
+            dirtyCells[dirtyCount++] = cell;
+        }
+
+        if (!redrawScheduled) {
+            redrawScheduled = true;
+            Platform.runLater(this::redrawDirty);
+        }
+    }
+
+    /*
+     * Returns the Cell under a point of the canvas, or null if the point is
+     * on the outer line
+     */
+    private Cell getCellAt(double x, double y) {
+        int row = (int) (y / pitch), column = (int) (x / pitch);
+        if (x < 0 || y < 0 || row >= layout.size || column >= layout.size)
+            return null;
+        return cells[row][column];
+    }
+
+    /*
+     * Draws the lines and then every Cell
+     */
+    private void redrawAll() {
+        // The lines are the gaps left between the Cells
+        graphics.setFill(Color.BLACK);
+        graphics.fillRect(0, 0, getWidth(), getHeight());
+
+        for (int cell = 0; cell < layout.cells; cell++)
+            drawCell(cell);
+
+        for (int k = 0; k < dirtyCount; k++)
+            dirty[dirtyCells[k]] = false;
+        dirtyCount = 0;
+    }
+
+    /*
+     * Draws the Cells that changed since the last draw
+     */
+    private void redrawDirty() {
+        redrawScheduled = false;
+        for (int k = 0; k < dirtyCount; k++) {
+            dirty[dirtyCells[k]] = false;
+            drawCell(dirtyCells[k]);
+        }
+        dirtyCount = 0;
+    }
+
+    /*
+     * Draws one Cell inside its lines: the background, the thick lines on the
+     * sides that touch another box, the value and the selected border
+     */
+    private void drawCell(int cell) {
+        int row = layout.rowOf[cell], column = layout.columnOf[cell], box = layout.boxSize;
+        double x = column * pitch + 1, y = row * pitch + 1;
+        Cell shown = cells[row][column];
+
+        graphics.setFill(shown.isInvalid() ? INVALID : BACKGROUND);
+        graphics.fillRect(x, y, cellSize, cellSize);
+
+        // Each line between two boxes is drawn 2 wide on both Cells beside it
+        graphics.setFill(Color.BLACK);
+        if (row % box == 0 && row != 0)
+            graphics.fillRect(x, y, cellSize, 2);
+        if (column % box == box - 1 && column != layout.size - 1)
+            graphics.fillRect(x + cellSize - 2, y, 2, cellSize);
+        if (row % box == box - 1 && row != layout.size - 1)
+            graphics.fillRect(x, y + cellSize - 2, cellSize, 2);
+        if (column % box == 0 && column != 0)
+            graphics.fillRect(x, y, 2, cellSize);
+
+        // The solver shows its solution as text only, so the text is drawn rather than the value
+        String text = shown.getText();
+        if (text != null && !text.isEmpty()) {
+            graphics.setFill(shown.isGiven() ? Color.BLACK : ENTERED);
+            graphics.setFont(valueFont);
+            graphics.fillText(text, x + cellSize / 2, y + cellSize / 2);
+        }
+
+        if (SudokuButton.selected == shown) {
+            graphics.setStroke(Color.CYAN);
+            graphics.setLineWidth(3);
+            graphics.strokeRect(x + 1.5, y + 1.5, cellSize - 3, cellSize - 3);
+        }
+    }
+}
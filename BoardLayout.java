@@ -0,0 +1,82 @@
+/**
+ * This class holds the lookup tables for one board size. A board is made of
+ * boxSize x boxSize boxes, so a standard board has a box size of 3 and 9 rows,
+ * columns, boxes and values. Box sizes 4 and 5 give the 16x16 and 25x25 boards.
+ * Candidates are stored as int bitsets with bit (value - 1) set, which is why
+ * the box size is limited to 5. Layouts are built once per box size and shared.
+ */
+
+package sudoku;
+
+public class BoardLayout {
+    public static final int MIN_BOX_SIZE = 2;
+    public static final int MAX_BOX_SIZE = 5; // 25 values still fit in an int bitset
+    private static final BoardLayout[] LAYOUTS = new BoardLayout[MAX_BOX_SIZE + 1];
+    public static final BoardLayout STANDARD = of(3);
+
+    public final int boxSize; // Rows and columns in one box
+    public final int size; // Rows, columns, boxes and values of the board
+    public final int cells; // Cells in the flat grid
+    public final int allCandidates; // Bits 0 to size - 1 set
+    public final int[] rowOf; // Row of each flat index
+    public final int[] columnOf; // Column of each flat index
+    public final int[] boxOf; // Box of each flat index
+    public final int[][] units; // Cells of every row, then every column, then every box
+
+    private BoardLayout(int boxSize) {
+        this.boxSize = boxSize;
+        size = boxSize * boxSize;
+        cells = size * size;
+        allCandidates = (1 << size) - 1;
+        rowOf = new int[cells];
+        columnOf = new int[cells];
+        boxOf = new int[cells];
+        units = new int[size * 3][size];
+
+        for (int cell = 0; cell < cells; cell++) {
+            rowOf[cell] = cell / size;
+            columnOf[cell] = cell % size;
+            boxOf[cell] = (rowOf[cell] / boxSize) * boxSize + columnOf[cell] / boxSize;
+        }
+
+        for (int u = 0; u < size; u++) {
+            int boxRow = (u / boxSize) * boxSize, boxColumn = (u % boxSize) * boxSize;
+            for (int k = 0; k < size; k++) {
+                units[u][k] = u * size + k; // Row u
+                units[size + u][k] = k * size + u; // Column u
+                units[size * 2 + u][k] = (boxRow + k / boxSize) * size + boxColumn + k % boxSize; // Box u
+            }
+        }
+    }
+
+    /*
+     * Returns the shared layout for a box size, building it the first time
+     */
+    public static synchronized BoardLayout of(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE)
+            throw new IllegalArgumentException("Unsupported box size: " + boxSize);
+
+        if (LAYOUTS[boxSize] == null)
+            LAYOUTS[boxSize] = new BoardLayout(boxSize);
+        return LAYOUTS[boxSize];
+    }
+
+    /*
+     * Returns the first row or column of the box containing a row or column
+     */
+    public int boxStart(int index) {
+        return (index / boxSize) * boxSize;
+    }
+
+    /*
+     * Returns the text shown for a value. Values above 9 are shown as letters
+     * starting at A so every value is one character
+     */
+    public static String valueText(int value) {
+        if (value <= 0)
+            return "";
+        if (value <= 9)
+            return String.valueOf(value);
+        return String.valueOf((char) ('A' + value - 10));
+    }
+}
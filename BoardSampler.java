@@ -0,0 +1,95 @@
+/**
+ * This class picks board numbers 1 to size in a random order without
+ * repeats, using a constant amount of memory however large the corpus is.
+ * The order is a seeded Feistel permutation: the nth pick is the nth number
+ * run through four rounds of a Feistel network, so only the seed and the
+ * number of picks are stored. The network permutes the smallest power of 4
+ * that holds size, and results above size are fed through again (cycle
+ * walking) until one lands in range, which takes under four passes on average.
+ */
+
+package sudoku;
+
+import java.util.Random;
+
+public class BoardSampler {
+    private static final int ROUNDS = 4;
+
+    private final int size;
+    private final int halfBits; // Bits in each half of the permuted numbers
+    private final int halfMask;
+    private final int[] keys = new int[ROUNDS];
+    private int picked; // Board numbers returned so far
+
+    BoardSampler(int size) {
+        this(size, new Random().nextLong());
+    }
+
+    BoardSampler(int size, long seed) {
+        this.size = size;
+
+        int bits = 2;
+        while ((1L << bits) < size)
+            bits += 2;
+        halfBits = bits / 2;
+        halfMask = (1 << halfBits) - 1;
+
+        Random random = new Random(seed);
+        for (int r = 0; r < ROUNDS; r++)
+            keys[r] = random.nextInt();
+    }
+
+    /*
+     * Returns the next board number, or 0 once every board has been picked
+     */
+    public int next() {
+        if (picked >= size)
+            return 0;
+        return boardAt(picked++);
+    }
+
+    /*
+     * Returns the number of boards not picked yet
+     */
+    public int remaining() {
+        return size - picked;
+    }
+
+    /*
+     * Returns the board number at a position of the order
+     */
+    public int boardAt(int position) {
+        int value = position;
+        do {
+            value = permute(value);
+        } while (Integer.compareUnsigned(value, size) >= 0); // A full 32 bit result is unsigned
+        return value + 1;
+    }
+
+    /*
+     * One pass through the Feistel network. Each round swaps the halves and
+     * mixes a hash of one half into the other, which is always reversible,
+     * so distinct inputs give distinct outputs
+     */
+    private int permute(int value) {
+        int left = value >>> halfBits, right = value & halfMask;
+        for (int r = 0; r < ROUNDS; r++) {
+            int next = left ^ (mix(right ^ keys[r]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /*
+     * Integer hash finalizer that spreads every input bit over the output
+     */
+    private static int mix(int x) {
+        x ^= x >>> 16;
+        x *= 0x85ebca6b;
+        x ^= x >>> 13;
+        x *= 0xc2b2ae35;
+        x ^= x >>> 16;
+        return x;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * This class is a command line benchmark that compares the scalar and Vector
+ * API candidate scanners on the same batch. The batch is read from a puzzle
+ * file if one is passed, otherwise random puzzles are made by relabelling a
+ * solved grid and clearing cells. Both scanners must agree on every candidate
+ * mask and valid flag before their times are printed.
+ *
+ * Usage: java --add-modules jdk.incubator.vector sudoku.CandidateBenchmark
+ *             [-n puzzles] [-r rounds] [file]
+ */
+
+package sudoku;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class CandidateBenchmark {
+    public static void main(String[] args) throws IOException {
+        int count = 100000, rounds = 20;
+        String input = null;
+
+        for (int a = 0; a < args.length; a++) {
+            if (args[a].equals("-n"))
+                count = Integer.parseInt(args[++a]);
+            else if (args[a].equals("-r"))
+                rounds = Integer.parseInt(args[++a]);
+            else
+                input = args[a];
+        }
+
+        int[] grids = input == null ? randomPuzzles(count, new Random(42)) : readPuzzles(input);
+        count = grids.length / SolverEngine.CELLS;
+
+        CandidateScanner scalar = new ScalarCandidateScanner(), vector = CandidateScanner.create();
+        if (vector instanceof ScalarCandidateScanner)
+            System.out.println("jdk.incubator.vector is not available, only the scalar scanner will run");
+
+        int[] scalarCandidates = new int[grids.length], vectorCandidates = new int[grids.length];
+        boolean[] scalarValid = new boolean[count], vectorValid = new boolean[count];
+        int scalarSingles = scalar.scan(grids, count, scalarCandidates, scalarValid);
+        int vectorSingles = vector.scan(grids, count, vectorCandidates, vectorValid);
+
+        if (scalarSingles != vectorSingles || !Arrays.equals(scalarCandidates, vectorCandidates)
+                || !Arrays.equals(scalarValid, vectorValid)) {
+            System.out.println("Scanners disagree");
+            System.exit(1);
+        }
+
+        int valid = 0;
+        for (boolean v : scalarValid)
+            if (v)
+                valid++;
+        System.out.printf("%d puzzles, %d valid, %d singles%n", count, valid, scalarSingles);
+
+        time(scalar, grids, count, scalarCandidates, scalarValid, rounds);
+        if (vector != scalar && !(vector instanceof ScalarCandidateScanner))
+            time(vector, grids, count, vectorCandidates, vectorValid, rounds);
+    }
+
+    /*
+     * Runs a scanner for warmup and then for the timed rounds, and prints
+     * the best round in puzzles per second
+     */
+    private static void time(CandidateScanner scanner, int[] grids, int count, int[] candidates,
+                             boolean[] valid, int rounds) {
+        for (int r = 0; r < rounds; r++)
+            scanner.scan(grids, count, candidates, valid);
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            scanner.scan(grids, count, candidates, valid);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-18s %8.2f ms  %,12.0f puzzles/s%n", scanner.getName(), best / 1e6,
+                count / (best / 1e9));
+    }
+
+    /*
+     * Reads every puzzle in a file into one flat array
+     */
+    private static int[] readPuzzles(String input) throws IOException {
+        ArrayList<int[]> puzzles = new ArrayList<>();
+        try (PuzzleReader reader = new PuzzleReader(new FileReader(input))) {
+            int[] puzzle;
+            while ((puzzle = reader.next()) != null)
+                puzzles.add(puzzle);
+        }
+
+        int[] grids = new int[puzzles.size() * SolverEngine.CELLS];
+        for (int p = 0; p < puzzles.size(); p++)
+            System.arraycopy(puzzles.get(p), 0, grids, p * SolverEngine.CELLS, SolverEngine.CELLS);
+        return grids;
+    }
+
+    /*
+     * Makes puzzles by relabelling the values of a solved pattern and clearing
+     * about two thirds of the cells. One in ten gets a random wrong value
+     */
+    private static int[] randomPuzzles(int count, Random random) {
+        int[] grids = new int[count * SolverEngine.CELLS];
+        int[] labels = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+        for (int p = 0; p < count; p++) {
+            for (int k = labels.length - 1; k > 0; k--) {
+                int swap = random.nextInt(k + 1), temp = labels[k];
+                labels[k] = labels[swap];
+                labels[swap] = temp;
+            }
+
+            for (int cell = 0; cell < SolverEngine.CELLS; cell++) {
+                int row = cell / 9, column = cell % 9;
+                int value = labels[(row * 3 + row / 3 + column) % 9];
+                grids[p * SolverEngine.CELLS + cell] = random.nextInt(3) == 0 ? value : 0;
+            }
+
+            if (random.nextInt(10) == 0)
+                grids[p * SolverEngine.CELLS + random.nextInt(SolverEngine.CELLS)] = random.nextInt(9) + 1;
+        }
+        return grids;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * This is an abstract class for the bulk candidate scanners. A scanner takes a
+ * batch of puzzles stored one after another in a flat int array, computes the
+ * candidate mask of every empty cell from its row, column and box, marks each
+ * puzzle valid or not, and counts the naked singles. It is used to validate
+ * large batches without the Cell array or a solver. create() returns the
+ * Vector API scanner when the jdk.incubator.vector module is available and
+ * the scalar scanner otherwise.
+ */
+
+package sudoku;
+
+public abstract class CandidateScanner {
+    protected static final int SIZE = SolverEngine.SIZE;
+    protected static final int CELLS = SolverEngine.CELLS;
+    protected static final int[][] UNITS = BoardLayout.STANDARD.units; // Cells of every row, column and box
+
+    /*
+     * Scans count puzzles from grids. For every cell, candidates receives the
+     * mask of values that can go there (0 for a filled cell). valid receives
+     * false for a puzzle with a repeated value or an empty cell without any
+     * candidates. Returns the number of naked singles in the whole batch
+     */
+    public abstract int scan(int[] grids, int count, int[] candidates, boolean[] valid);
+
+    /*
+     * Returns the name of the scanner for the benchmark output
+     */
+    public abstract String getName();
+
+    /*
+     * Returns the Vector API scanner if the incubator module was added to the
+     * runtime, falling back to the scalar scanner
+     */
+    public static CandidateScanner create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so this class does not need the module to load
+                return (CandidateScanner) Class.forName("sudoku.VectorCandidateScanner")
+                        .getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException | LinkageError ex) {
+                // Use the scalar scanner below
+            }
+        }
+        return new ScalarCandidateScanner();
+    }
+}
@@ -4,108 +4,114 @@
  * handling the click behavior. Cell additionally has many other methods that are
  * associated with play, including KeyEvent handlers. Cells used with play have
  * Tooltips that show hints and other get/set methods associated with that and with play.
- * Cells used with the solver do not have Tooltips but have other data fields and get/set
- * methods that are used with the solver algorithm.
+ * Cells used with the solver do not have Tooltips; the solve algorithm itself works on
+ * plain values in SolverEngine rather than on the Cells.
+ * Cells are created once for each board size and reused: reset() puts the
+ * values of a new board on them instead of building new Cells. Their look
+ * comes from sudoku.css; a change of state only switches a pseudo class.
+ * On boards drawn by a BoardCanvas the Cells are not shown themselves, but
+ * hold the state the canvas draws and report every change to it.
  */
 
 package sudoku;
 
+import javafx.css.PseudoClass;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.util.Duration;
-import java.util.ArrayList;
 
 public class Cell extends SudokuButton {
-    private final Background INVALID_BACKGROUND = new Background(new BackgroundFill(Color.rgb(255,150,150), null, null));
-    private final Background DEFAULT_BACKGROUND = new Background(new BackgroundFill(Color.ANTIQUEWHITE, null, null));
-    private final boolean solver; // Indicates if the Cell is being used with the player or the solver
-    private boolean solverValid; // If solver, this indicates if the current filled value is valid
+    private static final PseudoClass INVALID = PseudoClass.getPseudoClass("invalid");
+    private static final PseudoClass GIVEN = PseudoClass.getPseudoClass("given"); // Shown in black
+    private static final Font TOOLTIP_FONT = Font.font("Verdana", 10);
+    // Tooltip text for every candidate set of a 9x9 board, indexed by the set
+    private static final String[] TOOLTIP_TEXT = new String[1 << 9];
+    private boolean solver; // Indicates if the Cell is being used with the player or the solver
     private boolean updateable; // Indicates if the Cell's contents may be changed
     private int curValue; // Stores the current int value of the Cell
     private int row;
     private int column;
     private Tooltip hoverHint; // Stores the Tooltip associated with the cell
     private Board board; // Link to the board that owns it
-    public ArrayList<Integer> possible; // To use with hover and solver
+    private BoardCanvas canvas; // Draws this Cell if it is not shown as a button, otherwise null
+    private boolean given; // The value is shown in black
+    private boolean invalid; // The background is highlighted
+    private int candidates; // Possible values as a bitset, bit (value - 1) set for each
+
+    static {
+        for (int mask = 0; mask < TOOLTIP_TEXT.length; mask++)
+            TOOLTIP_TEXT[mask] = buildTooltipText(mask);
+    }
 
-    Cell(int curValue, int row, int column, boolean solver, Board board) {
-        super("",50, Color.ANTIQUEWHITE); // Initializes with an empty cell
+    Cell(int row, int column, Board board) {
+        super("", Board.getCellSize(), Board.getCellSize()); // Initializes with an empty cell
+        // Cells on the larger boards are smaller than the default padding allows, so they
+        // must not grow to fit their text
+        setMaxSize(Board.getCellSize(), Board.getCellSize());
 
-        this.curValue = curValue;
         this.row = row;
         this.column = column;
-        this.solver = solver;
         this.board = board;
-        solverValid = false; // Set to false; only changed by the solve algorithm
+        setStyleClasses();
 
-        if (board.getDifficulty() == 0 && curValue == 0 && !solver)
-            updateable = false; // Empty play menu board is set to false so it can't be clicked and no tooltip
-        else if (solver || curValue == 0)
-            updateable = true;
-        else if (curValue != 0) {
-            updateable = false;
-            setTextProperties(String.valueOf(curValue), Color.BLACK); // Text is only set if non-zero
-        }
-
-        resetPossible(); // Initializes possible with all 9 values
+        candidates = Board.getLayout().allCandidates; // Every value is possible until the board is checked
         hoverHint = new Tooltip(getTooltipText()); // Creates the Tooltip
         setUpTooltip(); // Sets up the Tooltip associated with this cell
     }
 
     /*
-     * Implementation specific to Cells. The borders in rows 2, 3, 5, 6 and columns
-     * 2, 3, 5, 6 are all thickened in order to separate the 3x3 boxes of the board
+     * Puts the initial value of a new board on this Cell, clearing everything
+     * left from the board it showed before
      */
-    public void setBlockBorders(int i, int j) {
-        BorderStroke stroke;
-        if ((i == 2 && j == 2) || (i == 2 && j == 5) || (i == 5 && j == 2) || (i == 5 & j == 5))
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.NONE, BorderStrokeStyle.SOLID, BorderStrokeStyle.SOLID, BorderStrokeStyle.NONE,
-                    CornerRadii.EMPTY, new BorderWidths(0,2,2,0), null);
-
-        else if ((i == 2 && j == 3) || (i == 2 && j == 6) || (i == 5 && j == 3) || (i == 5 & j == 6))
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.NONE, BorderStrokeStyle.NONE, BorderStrokeStyle.SOLID, BorderStrokeStyle.SOLID,
-                    CornerRadii.EMPTY, new BorderWidths(0,0,2,2), null);
-
-        else if ((i == 3 && j == 2) || (i == 3 && j == 5) || (i == 6 && j == 2) || (i == 6 & j == 5))
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.SOLID, BorderStrokeStyle.SOLID, BorderStrokeStyle.NONE, BorderStrokeStyle.NONE,
-                    CornerRadii.EMPTY, new BorderWidths(2, 2,0,0), null);
-
-        else if ((i == 3 && j == 3) || (i == 3 && j == 6) || (i == 6 && j == 3) || (i == 6 & j == 6))
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.SOLID, BorderStrokeStyle.NONE, BorderStrokeStyle.NONE, BorderStrokeStyle.SOLID,
-                    CornerRadii.EMPTY, new BorderWidths(2,0,0,2), null);
-        else if (i == 2 || i == 5)
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.NONE, BorderStrokeStyle.NONE, BorderStrokeStyle.SOLID, BorderStrokeStyle.NONE,
-                    CornerRadii.EMPTY, new BorderWidths(0,0,2,0), null);
-
-        else if (i == 3 || i == 6)
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.SOLID, BorderStrokeStyle.NONE, BorderStrokeStyle.NONE, BorderStrokeStyle.NONE,
-                    CornerRadii.EMPTY, new BorderWidths(2,0,0,0), null);
-
-        else if (j == 2 || j == 5)
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.NONE, BorderStrokeStyle.SOLID, BorderStrokeStyle.NONE, BorderStrokeStyle.NONE,
-                    CornerRadii.EMPTY, new BorderWidths(0,2,0,0), null);
-
-        else if (j == 3 || j == 6)
-            stroke = new BorderStroke(Color.BLACK, Color.BLACK, Color.BLACK, Color.BLACK,
-                    BorderStrokeStyle.NONE, BorderStrokeStyle.NONE, BorderStrokeStyle.NONE, BorderStrokeStyle.SOLID,
-                    CornerRadii.EMPTY, new BorderWidths(0,0,0,2), null);
+    public void reset(int curValue, boolean solver) {
+        this.curValue = curValue;
+        this.solver = solver;
 
+        if (board.getDifficulty() == 0 && curValue == 0 && !solver)
+            updateable = false; // Empty play menu board is set to false so it can't be clicked and no tooltip
         else
-            stroke = null;
+            updateable = solver || curValue == 0;
+
+        setTextProperties(BoardLayout.valueText(curValue), true); // Empty text if the value is 0
+        updateBackground(true);
+        setBlockBorders(row, column);
 
-        updateBorder(new Border(stroke));
+        candidates = Board.getLayout().allCandidates; // Every value is possible until the board is checked
+        hoverHint.setText(getTooltipText());
+        // Only empty Cells in play show their possible values
+        if (!solver && updateable)
+            setTooltip(hoverHint);
+        else if (getTooltip() != null)
+            setTooltip(null);
+    }
+
+    /*
+     * Implementation specific to Cells. The borders on either side of every line
+     * between two boxes are thickened in order to separate the boxes of the board.
+     * They are set once by the style classes, so this only removes the selection
+     */
+    public void setBlockBorders(int i, int j) {
+        showSelected(false);
+    }
+
+    /*
+     * Adds the style classes that give this Cell its look, including one for
+     * each side that touches a neighbouring box
+     */
+    private void setStyleClasses() {
+        int box = Board.getLayout().boxSize, last = Board.getSize() - 1;
+        getStyleClass().add("sudoku-cell");
+
+        if (row % box == 0 && row != 0)
+            getStyleClass().add("box-top");
+        if (column % box == box - 1 && column != last)
+            getStyleClass().add("box-right");
+        if (row % box == box - 1 && row != last)
+            getStyleClass().add("box-bottom");
+        if (column % box == 0 && column != 0)
+            getStyleClass().add("box-left");
     }
 
     /*
@@ -142,9 +148,14 @@ public class Cell extends SudokuButton {
 
             curValue = value;
             setValue(curValue, false);
+            board.valueChanged(this);
 
-            // Checks the board for being solved to update possible values and backgrounds
-            board.checkSolution(solver);
+            // Redraws the possible values and backgrounds of the Cells this change affects
+            board.refreshChanged(solver);
+
+            // Lets a game in play be saved after the change
+            if (!solver)
+                board.edited();
          }
     }
 
@@ -154,25 +165,27 @@ public class Cell extends SudokuButton {
      * what type of Cell it is and where in the pipeline the set occurs
      */
     public void setValue(int value, boolean solved) {
-        // Used while filling the solver board
+        // Used while filling the solver board, shown in black like the given values
         if (solver && !solved && value > 0)
-            setTextProperties(String.valueOf(value), Color.BLACK);
-        // Used when solved or while filling the play board
+            setTextProperties(BoardLayout.valueText(value), true);
+        // Used when solved or while filling the play board, shown in green
         else if ((solved || !solver) && value > 0)
-            setTextProperties(String.valueOf(value), Color.rgb(0,153,0));
+            setTextProperties(BoardLayout.valueText(value), false);
         // If the value to set is 0, it sets an empty String (color is arbitrary)
         else
-            setTextProperties("",Color.rgb(0,153,0));
+            setTextProperties("", false);
     }
 
     /*
      * This method is called from setValue to actually do the set action
-     * with the determined value and text color
+     * with the determined value and text color. The color and font come
+     * from the stylesheet
      */
-    private void setTextProperties(String text, Color color) {
+    private void setTextProperties(String text, boolean given) {
         setText(text);
-        setTextFill(color);
-        setFont(Font.font("Verdana", FontWeight.BLACK, 12));
+        this.given = given;
+        pseudoClassStateChanged(GIVEN, given);
+        repaint();
     }
 
     /*
@@ -181,39 +194,75 @@ public class Cell extends SudokuButton {
      * highlights invalid and empty squares only after done has been checked
      */
     public void updateBackground(boolean valid) {
-        if (valid && getBackground() != DEFAULT_BACKGROUND)
-            setBackground(DEFAULT_BACKGROUND);
-        else if (!valid && (getBackground() != INVALID_BACKGROUND || solver))
-            setBackground(INVALID_BACKGROUND);
+        if (invalid == valid) {
+            invalid = !valid;
+            pseudoClassStateChanged(INVALID, invalid);
+            repaint();
+        }
     }
 
     /*
-     * Get method for the private updateable property
+     * Returns true if the value is shown in black, like the given values
      */
-    public boolean getUpdateable() {
-        return updateable;
+    public boolean isGiven() {
+        return given;
     }
 
     /*
-     * Set method for the private updateable property
+     * Returns true if the background is highlighted
      */
-    public void setUpdateable(boolean updateable) {
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    /*
+     * Switches the selected look on or off, on the button or on the canvas
+     */
+    @Override
+    protected void showSelected(boolean selected) {
+        super.showSelected(selected);
+        repaint();
+    }
+
+    /*
+     * Sets the canvas that draws this Cell in place of the button
+     */
+    public void setCanvas(BoardCanvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /*
+     * Tells the canvas, if there is one, that this Cell must be drawn again
+     */
+    private void repaint() {
+        if (canvas != null)
+            canvas.repaint(row, column);
+    }
+
+    /*
+     * Puts back a saved value and updateable flag without adding to the
+     * undo stack. Used when a saved game is restored
+     */
+    public void restore(int value, boolean updateable) {
+        curValue = value;
+        // Given values cannot be changed, and keep their black text
+        setTextProperties(BoardLayout.valueText(value), !updateable && value > 0);
         this.updateable = updateable;
+        board.valueChanged(this);
     }
 
     /*
-     * Get method for the private solverValid property. Used with the solve
-     * algorithm to touch or not touch squares during a recursive iteration
+     * Get method for the private updateable property
      */
-    public boolean getSolverValid() {
-        return solverValid;
+    public boolean getUpdateable() {
+        return updateable;
     }
 
     /*
-     * Set method for the private solverValid propertty
+     * Set method for the private updateable property
      */
-    public void setSolverValid(boolean solverValid) {
-        this.solverValid = solverValid;
+    public void setUpdateable(boolean updateable) {
+        this.updateable = updateable;
     }
 
     /*
@@ -255,7 +304,7 @@ public class Cell extends SudokuButton {
             }
             // Move selected down one Cell (if possible)
             else if (code == KeyCode.DOWN) {
-                if (newRow < 8)
+                if (newRow < Board.getSize() - 1)
                     newRow++;
             }
             // Move selected left one Cell (if possible)
@@ -265,7 +314,7 @@ public class Cell extends SudokuButton {
             }
             // Move selected right one Cell (if possible)
             else if (code == KeyCode.RIGHT) {
-                if (newColumn < 8)
+                if (newColumn < Board.getSize() - 1)
                     newColumn++;
             }
             // If backspace or delete is typed, it will clear the Cell value
@@ -281,6 +330,11 @@ public class Cell extends SudokuButton {
                 if (codeString.length() > 5 && codeString.charAt(5) <= 57 && codeString.charAt(5) >= 48) {
                     selected.updateValue(codeString.charAt(5) - 48, false);
                 }
+                // Letter KeyCodes are single characters; A is 10, B is 11 and so on for larger boards
+                else if (codeString.length() == 1 && codeString.charAt(0) >= 'A'
+                        && codeString.charAt(0) - 'A' + 10 <= Board.getSize()) {
+                    selected.updateValue(codeString.charAt(0) - 'A' + 10, false);
+                }
                 return;
             }
             selected.updateSelected(board.getCurrentBoard()[newRow][newColumn]);
@@ -288,16 +342,12 @@ public class Cell extends SudokuButton {
     }
 
     /*
-     *
+     * Sets the delays and font of the Tooltip. It is installed by reset()
      */
     private void setUpTooltip() {
-        hoverHint.setText(getTooltipText());
         hoverHint.setShowDelay(Duration.seconds(1.75));
         hoverHint.setHideDelay(Duration.seconds(0));
-        hoverHint.setFont(Font.font("Verdana", 10));
-
-        if (!solver && updateable)
-            setTooltip(hoverHint);
+        hoverHint.setFont(TOOLTIP_FONT);
     }
 
     /*
@@ -309,28 +359,75 @@ public class Cell extends SudokuButton {
     }
 
     /*
-     * Builds a string of the current possible values to be displayed
+     * Returns the possible values as a bitset, bit (value - 1) set for each
      */
-    private String getTooltipText() {
-        String s = "Possible: ";
-
-        for (int i= 0; i < possible.size(); i++) {
-            s += possible.get(i);
+    public int getCandidates() {
+        return candidates;
+    }
 
-            if (i < possible.size()-1)
-                s += ", ";
+    /*
+     * Sets the possible values. The Tooltip is only touched if they changed
+     */
+    public void setCandidates(int candidates) {
+        if (candidates != this.candidates) {
+            this.candidates = candidates;
+            updateTooltip();
+            repaint();
         }
-        return s;
     }
 
     /*
-     * Resets possible to default (all 9 values) to be removed correctly
+     * Returns true if value is one of the possible values
      */
-    public void resetPossible() {
-        possible = new ArrayList<>();
+    public boolean isCandidate(int value) {
+        return (candidates & (1 << (value - 1))) != 0;
+    }
+
+    /*
+     * Returns the number of possible values
+     */
+    public int getCandidateCount() {
+        return Integer.bitCount(candidates);
+    }
+
+    /*
+     * Returns the smallest possible value above value, or 0 if there is none.
+     * Starting from 0 iterates over all of them
+     */
+    public int nextCandidate(int value) {
+        return nextCandidate(candidates, value);
+    }
+
+    /*
+     * Returns the smallest value of a candidate bitset above value, or 0
+     */
+    private static int nextCandidate(int candidates, int value) {
+        int above = value >= 32 ? 0 : candidates & (-1 << value);
+        return above == 0 ? 0 : Integer.numberOfTrailingZeros(above) + 1;
+    }
+
+    /*
+     * Returns the string of the current possible values to be displayed. The
+     * strings for 9x9 boards are all built once, when the class is loaded
+     */
+    private String getTooltipText() {
+        if (candidates < TOOLTIP_TEXT.length)
+            return TOOLTIP_TEXT[candidates];
+        return buildTooltipText(candidates);
+    }
+
+    /*
+     * Builds the string of the possible values in a candidate bitset
+     */
+    private static String buildTooltipText(int candidates) {
+        StringBuilder text = new StringBuilder("Possible: ");
+
+        for (int value = nextCandidate(candidates, 0); value != 0; value = nextCandidate(candidates, value)) {
+            text.append(BoardLayout.valueText(value));
 
-        for (int i = 1; i <=9; i++) {
-            possible.add(Integer.valueOf(i));
+            if (nextCandidate(candidates, value) != 0)
+                text.append(", ");
         }
+        return text.toString();
     }
 }
@@ -0,0 +1,318 @@
+/**
+ * This class is the Dancing Links (Algorithm X) solver backend. Sudoku is
+ * written as an exact cover problem with one constraint column for every cell
+ * and for every value in every row, column and box (324 on a 9x9 board), and
+ * one candidate row for every value in every cell (729 on a 9x9 board). The
+ * linked matrix is stored in int arrays that are built once in the
+ * constructor. A solve covers the given values, searches, then uncovers
+ * everything again so the same matrix is reused by the next solve.
+ */
+
+package sudoku;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+
+public class DancingLinksSolver extends SudokuSolver {
+    private final int boardSize; // Rows, columns, boxes and values of the board
+    private final int cells;
+    private final int columns; // Cell, row, column and box constraints
+    private final int root; // Header node linking all uncovered columns
+
+    // The linked matrix: left, right, up and down links and column header of every node
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] rowOf; // Candidate row of each node
+    private final int[] size; // Number of nodes left in each column
+    private final int[] firstNode; // First node of each candidate row
+
+    private final int[] grid; // The loaded values and later the solution
+    private final int[] given; // Candidate rows covered before the search
+    private final int[] solution; // Candidate rows chosen by the search
+    // Bitmasks of the given values in each row, column and box, used by load()
+    private final int[] rowUsed;
+    private final int[] columnUsed;
+    private final int[] boxUsed;
+    private int givenCount;
+    private int depth; // Number of rows chosen on the current path
+    private int solutionCount; // Solutions found by the current count
+    private int limit; // Number of solutions to stop the current count at
+    private boolean loadValid; // False if the loaded values already conflict
+
+    DancingLinksSolver() {
+        this(BoardLayout.STANDARD);
+    }
+
+    DancingLinksSolver(BoardLayout layout) {
+        super(layout);
+        boardSize = layout.size;
+        cells = layout.cells;
+        columns = cells * 4;
+        root = columns;
+
+        int rows = cells * boardSize; // One row for every value in every cell
+        int nodes = columns + 1 + rows * 4; // Headers, root and 4 nodes per row
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        rowOf = new int[nodes];
+        size = new int[columns];
+        firstNode = new int[rows];
+
+        grid = new int[cells];
+        given = new int[cells];
+        solution = new int[cells];
+        rowUsed = new int[boardSize];
+        columnUsed = new int[boardSize];
+        boxUsed = new int[boardSize];
+        build();
+    }
+
+    /*
+     * Links every header and candidate row into the matrix. Only called again
+     * if a timeout interrupts a search before it could uncover its columns
+     */
+    private void build() {
+        // Circular list of the column headers around the root
+        for (int c = 0; c <= root; c++) {
+            left[c] = c == 0 ? root : c - 1;
+            right[c] = c == root ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+        for (int c = 0; c < columns; c++)
+            size[c] = 0;
+
+        int node = root + 1;
+        for (int cell = 0; cell < cells; cell++) {
+            int row = layout.rowOf[cell], col = layout.columnOf[cell], box = layout.boxOf[cell];
+
+            for (int digit = 0; digit < boardSize; digit++) {
+                int candidate = cell * boardSize + digit;
+                firstNode[candidate] = node;
+
+                // The four constraints satisfied by placing this digit in this cell
+                int[] constraints = {
+                        cell,
+                        cells + row * boardSize + digit,
+                        cells * 2 + col * boardSize + digit,
+                        cells * 3 + box * boardSize + digit
+                };
+
+                for (int k = 0; k < 4; k++) {
+                    int c = constraints[k];
+                    column[node] = c;
+                    rowOf[node] = candidate;
+
+                    // Append to the bottom of the column
+                    up[node] = up[c];
+                    down[node] = c;
+                    down[up[c]] = node;
+                    up[c] = node;
+                    size[c]++;
+
+                    // Link to the other nodes of the same candidate row
+                    left[node] = k == 0 ? node + 3 : node - 1;
+                    right[node] = k == 3 ? node - 3 : node + 1;
+                    node++;
+                }
+            }
+        }
+    }
+
+    /*
+     * Copies the passed values and records which candidate rows are given
+     */
+    @Override
+    public boolean load(int[] values) {
+        Arrays.fill(rowUsed, 0);
+        Arrays.fill(columnUsed, 0);
+        Arrays.fill(boxUsed, 0);
+        boolean valid = true;
+        givenCount = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int value = values[cell];
+            grid[cell] = value;
+            if (value == 0)
+                continue;
+
+            int row = layout.rowOf[cell], col = layout.columnOf[cell], box = layout.boxOf[cell];
+            int mask = SolverEngine.bit(value);
+
+            // A given that repeats in a unit would try to cover a column twice
+            if (((rowUsed[row] | columnUsed[col] | boxUsed[box]) & mask) != 0)
+                valid = false;
+            else {
+                rowUsed[row] |= mask;
+                columnUsed[col] |= mask;
+                boxUsed[box] |= mask;
+                given[givenCount++] = cell * boardSize + value - 1;
+            }
+        }
+        loadValid = valid;
+        return valid;
+    }
+
+    /*
+     * Covers the given rows, runs Algorithm X and then restores the matrix
+     */
+    @Override
+    public int countSolutions(int limit) throws TimeoutException {
+        startClock();
+        this.limit = limit;
+        solutionCount = 0;
+
+        // Conflicting values have no solutions, so do not search
+        if (!loadValid)
+            return 0;
+
+        for (int g = 0; g < givenCount; g++)
+            coverRow(firstNode[given[g]]);
+
+        try {
+            search(0);
+        }
+        catch (TimeoutException ex) {
+            // The search was interrupted mid-cover, so the links have to be rebuilt
+            build();
+            throw ex;
+        }
+
+        // Uncover in the reverse order of covering
+        for (int g = givenCount - 1; g >= 0; g--)
+            uncoverRow(firstNode[given[g]]);
+
+        return solutionCount;
+    }
+
+    /*
+     * Recursive Algorithm X. Always branches on the column with the fewest
+     * remaining rows and writes the chosen rows of the first solution to
+     * the grid. Returns true once the limit is reached so the search can stop
+     */
+    private boolean search(int depth) throws TimeoutException {
+        if (right[root] == root) {
+            if (++solutionCount == 1) {
+                for (int d = 0; d < depth; d++) {
+                    int candidate = rowOf[solution[d]];
+                    grid[candidate / boardSize] = candidate % boardSize + 1;
+                }
+            }
+            return solutionCount >= limit;
+        }
+
+        // Choose the column with the smallest size
+        int chosen = right[root];
+        for (int c = right[chosen]; c != root; c = right[c]) {
+            if (size[c] < size[chosen])
+                chosen = c;
+        }
+        if (size[chosen] == 0)
+            return false;
+
+        boolean found = false;
+        cover(chosen);
+        for (int r = down[chosen]; r != chosen && !found; r = down[r]) {
+            this.depth = depth;
+            countNode();
+            solution[depth] = r;
+
+            for (int j = right[r]; j != r; j = right[j])
+                cover(column[j]);
+
+            found = search(depth + 1);
+
+            for (int j = left[r]; j != r; j = left[j])
+                uncover(column[j]);
+        }
+        uncover(chosen);
+
+        return found;
+    }
+
+    /*
+     * Removes a column from the header list and removes every row that
+     * satisfies it from the other columns
+     */
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    /*
+     * Exact reverse of cover()
+     */
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    /*
+     * Covers all four columns of a given candidate row
+     */
+    private void coverRow(int node) {
+        int j = node;
+        do {
+            cover(column[j]);
+            j = right[j];
+        } while (j != node);
+    }
+
+    /*
+     * Uncovers the four columns of a given candidate row in reverse order
+     */
+    private void uncoverRow(int node) {
+        int j = left[node];
+        for (int k = 0; k < 4; k++) {
+            uncover(column[j]);
+            j = left[j];
+        }
+    }
+
+    @Override
+    public int[] getGrid() {
+        return grid;
+    }
+
+    /*
+     * The current path is the given rows and the rows chosen above this node
+     */
+    @Override
+    protected void copyPath(int[] into) {
+        Arrays.fill(into, 0);
+        for (int g = 0; g < givenCount; g++)
+            into[given[g] / boardSize] = given[g] % boardSize + 1;
+        for (int d = 0; d < depth; d++) {
+            int candidate = rowOf[solution[d]];
+            into[candidate / boardSize] = candidate % boardSize + 1;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Dancing Links";
+    }
+}
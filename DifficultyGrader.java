@@ -0,0 +1,621 @@
+/**
+ * This class rates a puzzle by solving it the way a person would. Every step
+ * uses the easiest technique on the ladder that still makes progress: hidden
+ * and naked singles, naked and hidden pairs, pointing (a value locked into
+ * one line of a box, or one box of a line), X-wings, swordfish and chains
+ * (two colouring of the cells linked by a value that appears only twice in a
+ * unit). The rating is the hardest technique needed and how many times each
+ * one was used. A puzzle that the ladder cannot finish needs guessing, which
+ * is the hardest rating. Candidates are int bitsets as in SolverEngine, so a
+ * whole corpus can be rated in bulk; main prints one line per puzzle.
+ *
+ * Usage: java sudoku.DifficultyGrader [file ...]
+ */
+
+package sudoku;
+
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class DifficultyGrader {
+    /*
+     * The techniques in the order they are tried, easiest first
+     */
+    public enum Technique {
+        HIDDEN_SINGLE("Hidden single"),
+        NAKED_SINGLE("Naked single"),
+        NAKED_PAIR("Naked pair"),
+        HIDDEN_PAIR("Hidden pair"),
+        POINTING("Pointing"),
+        X_WING("X-wing"),
+        SWORDFISH("Swordfish"),
+        CHAIN("Chain"),
+        GUESSING("Guessing"); // Not a technique; the ladder got stuck
+
+        private final String name;
+
+        Technique(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final Technique[] LADDER = Technique.values();
+
+    private final BoardLayout layout = BoardLayout.STANDARD;
+    private final int[] values = new int[layout.cells];
+    private final int[] candidates = new int[layout.cells]; // Candidate bitset of every empty cell
+    private final int[][] peers = new int[layout.cells][]; // Cells sharing a row, column or box
+    private final int[] counts = new int[LADDER.length];
+    private final int[] color = new int[layout.cells]; // Chain colouring, 0 is uncoloured
+    private final int[] queue = new int[layout.cells];
+    private Technique hardest;
+    private int remaining; // Empty cells left
+
+    DifficultyGrader() {
+        for (int cell = 0; cell < layout.cells; cell++) {
+            ArrayList<Integer> cellPeers = new ArrayList<>();
+            for (int other = 0; other < layout.cells; other++) {
+                if (other != cell && sees(cell, other))
+                    cellPeers.add(other);
+            }
+            peers[cell] = cellPeers.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /*
+     * Solves the puzzle with the technique ladder and returns the hardest
+     * technique used. GUESSING means the ladder could not finish it, which
+     * includes puzzles with conflicting values or no solution
+     */
+    public Technique grade(int[] puzzle) {
+        Arrays.fill(counts, 0);
+        hardest = null;
+
+        if (!load(puzzle)) {
+            hardest = Technique.GUESSING;
+            return hardest;
+        }
+
+        while (remaining > 0) {
+            Technique used = step();
+            if (used == null) {
+                used = Technique.GUESSING;
+                counts[used.ordinal()]++;
+            }
+            if (hardest == null || used.compareTo(hardest) > 0)
+                hardest = used;
+            if (used == Technique.GUESSING)
+                break;
+        }
+
+        // A puzzle full of givens needs no technique at all
+        if (hardest == null)
+            hardest = Technique.HIDDEN_SINGLE;
+        return hardest;
+    }
+
+    /*
+     * Returns the hardest technique of the last grade
+     */
+    public Technique getHardest() {
+        return hardest;
+    }
+
+    /*
+     * Returns how many times a technique was used by the last grade
+     */
+    public int getCount(Technique technique) {
+        return counts[technique.ordinal()];
+    }
+
+    /*
+     * Returns the difficulty band (1 to 3) of the last grade: singles are
+     * easy, pairs and pointing are medium and anything harder is hard
+     */
+    public int getDifficulty() {
+        if (hardest.compareTo(Technique.NAKED_SINGLE) <= 0)
+            return 1;
+        if (hardest.compareTo(Technique.POINTING) <= 0)
+            return 2;
+        return 3;
+    }
+
+    /*
+     * Places the givens. Returns false if two of them conflict
+     */
+    private boolean load(int[] puzzle) {
+        remaining = layout.cells;
+        for (int cell = 0; cell < layout.cells; cell++) {
+            values[cell] = 0;
+            candidates[cell] = layout.allCandidates;
+        }
+
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (puzzle[cell] == 0)
+                continue;
+            if ((candidates[cell] & SolverEngine.bit(puzzle[cell])) == 0)
+                return false;
+            place(cell, puzzle[cell]);
+        }
+        return true;
+    }
+
+    /*
+     * Tries each technique from the bottom of the ladder and returns the
+     * first one that made progress, or null if none did
+     */
+    private Technique step() {
+        for (Technique technique : LADDER) {
+            boolean progress;
+            switch (technique) {
+                case HIDDEN_SINGLE:
+                    progress = hiddenSingles();
+                    break;
+                case NAKED_SINGLE:
+                    progress = nakedSingles();
+                    break;
+                case NAKED_PAIR:
+                    progress = nakedPairs();
+                    break;
+                case HIDDEN_PAIR:
+                    progress = hiddenPairs();
+                    break;
+                case POINTING:
+                    progress = pointing();
+                    break;
+                case X_WING:
+                    progress = fish(2);
+                    break;
+                case SWORDFISH:
+                    progress = fish(3);
+                    break;
+                case CHAIN:
+                    progress = chains();
+                    break;
+                default:
+                    return null;
+            }
+            if (progress)
+                return technique;
+        }
+        return null;
+    }
+
+    /*
+     * Places every value that fits in only one cell of a unit. Each
+     * placement counts as one use
+     */
+    private boolean hiddenSingles() {
+        int placed = 0;
+        for (int[] unit : layout.units) {
+            int once = 0, twice = 0, filled = 0;
+            for (int cell : unit) {
+                if (values[cell] != 0)
+                    filled |= SolverEngine.bit(values[cell]);
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            int single = once & ~twice & ~filled;
+
+            for (int k = 0; k < unit.length && single != 0; k++) {
+                int mask = candidates[unit[k]] & single;
+                if (mask != 0) {
+                    // A cell that is the only place for two values has no solution,
+                    // which leaves the other value with nowhere to go
+                    mask &= -mask;
+                    single &= ~mask;
+                    place(unit[k], Integer.numberOfTrailingZeros(mask) + 1);
+                    placed++;
+                }
+            }
+        }
+        counts[Technique.HIDDEN_SINGLE.ordinal()] += placed;
+        return placed > 0;
+    }
+
+    /*
+     * Places the value of every cell with only one candidate
+     */
+    private boolean nakedSingles() {
+        int placed = 0;
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (values[cell] == 0 && Integer.bitCount(candidates[cell]) == 1) {
+                place(cell, Integer.numberOfTrailingZeros(candidates[cell]) + 1);
+                placed++;
+            }
+        }
+        counts[Technique.NAKED_SINGLE.ordinal()] += placed;
+        return placed > 0;
+    }
+
+    /*
+     * Two cells of a unit with the same two candidates hold those values,
+     * so the values are removed from the rest of the unit
+     */
+    private boolean nakedPairs() {
+        for (int[] unit : layout.units) {
+            for (int a = 0; a < unit.length; a++) {
+                int pair = candidates[unit[a]];
+                if (Integer.bitCount(pair) != 2)
+                    continue;
+
+                for (int b = a + 1; b < unit.length; b++) {
+                    if (candidates[unit[b]] != pair)
+                        continue;
+
+                    boolean changed = false;
+                    for (int cell : unit) {
+                        if (cell != unit[a] && cell != unit[b])
+                            changed |= eliminate(cell, pair);
+                    }
+                    if (changed) {
+                        counts[Technique.NAKED_PAIR.ordinal()]++;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Two values that fit in the same two cells of a unit and nowhere else
+     * in it fill those cells, so the other candidates of the cells are removed
+     */
+    private boolean hiddenPairs() {
+        int[] places = new int[layout.size]; // Positions in the unit of every value
+        for (int[] unit : layout.units) {
+            Arrays.fill(places, 0);
+            for (int k = 0; k < unit.length; k++) {
+                for (int mask = candidates[unit[k]]; mask != 0; mask &= mask - 1)
+                    places[Integer.numberOfTrailingZeros(mask)] |= 1 << k;
+            }
+
+            for (int v = 0; v < layout.size; v++) {
+                if (Integer.bitCount(places[v]) != 2)
+                    continue;
+                for (int w = v + 1; w < layout.size; w++) {
+                    if (places[w] != places[v])
+                        continue;
+
+                    int pair = (1 << v) | (1 << w);
+                    boolean changed = false;
+                    for (int k = 0; k < unit.length; k++) {
+                        if ((places[v] & (1 << k)) != 0)
+                            changed |= eliminate(unit[k], ~pair);
+                    }
+                    if (changed) {
+                        counts[Technique.HIDDEN_PAIR.ordinal()]++;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * If a value in a box only fits in one row or column, it cannot be
+     * anywhere else in that line. The reverse also holds: a value that only
+     * fits in one box of a line cannot be anywhere else in that box
+     */
+    private boolean pointing() {
+        int size = layout.size;
+        for (int box = 0; box < size; box++) {
+            int[] boxCells = layout.units[size * 2 + box];
+
+            for (int bit = 1; bit <= layout.allCandidates; bit <<= 1) {
+                int row = -1, column = -1, found = 0;
+                for (int cell : boxCells) {
+                    if ((candidates[cell] & bit) == 0)
+                        continue;
+                    row = found == 0 || row == layout.rowOf[cell] ? layout.rowOf[cell] : size;
+                    column = found == 0 || column == layout.columnOf[cell] ? layout.columnOf[cell] : size;
+                    found++;
+                }
+                if (found < 2)
+                    continue;
+
+                // Rows and columns are units 0 to 2 * size - 1; size means not one line
+                if ((row < size && removeOutside(layout.units[row], box, bit, true))
+                        || (column < size && removeOutside(layout.units[size + column], box, bit, true))) {
+                    counts[Technique.POINTING.ordinal()]++;
+                    return true;
+                }
+            }
+        }
+
+        for (int line = 0; line < size * 2; line++) {
+            for (int bit = 1; bit <= layout.allCandidates; bit <<= 1) {
+                int box = -1, found = 0;
+                for (int cell : layout.units[line]) {
+                    if ((candidates[cell] & bit) == 0)
+                        continue;
+                    box = found == 0 || box == layout.boxOf[cell] ? layout.boxOf[cell] : size;
+                    found++;
+                }
+                if (found < 2 || box == size)
+                    continue;
+
+                if (removeOutside(layout.units[size * 2 + box], line, bit, false)) {
+                    counts[Technique.POINTING.ordinal()]++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Removes a candidate from the cells of a unit that are outside a box,
+     * or outside a row or column (units 0 to 2 * size - 1)
+     */
+    private boolean removeOutside(int[] unit, int keep, int bit, boolean keepIsBox) {
+        boolean changed = false;
+        for (int cell : unit) {
+            boolean inside = keepIsBox ? layout.boxOf[cell] == keep
+                    : keep < layout.size ? layout.rowOf[cell] == keep : layout.columnOf[cell] == keep - layout.size;
+            if (!inside)
+                changed |= eliminate(cell, bit);
+        }
+        return changed;
+    }
+
+    /*
+     * X-wing for a size of 2 and swordfish for 3. If a value fits in the same
+     * size columns of size rows (and nowhere else in those rows), those rows
+     * hold it in those columns, so it is removed from the rest of the columns.
+     * The same is checked with rows and columns swapped
+     */
+    private boolean fish(int size) {
+        int[] lines = new int[layout.size];
+        for (int bit = 1; bit <= layout.allCandidates; bit <<= 1) {
+            for (int base = 0; base <= layout.size; base += layout.size) {
+                // Positions of the value in every line, as a bitset
+                for (int line = 0; line < layout.size; line++) {
+                    lines[line] = 0;
+                    int[] unit = layout.units[base + line];
+                    for (int k = 0; k < unit.length; k++) {
+                        if ((candidates[unit[k]] & bit) != 0)
+                            lines[line] |= 1 << k;
+                    }
+                }
+
+                if (findFish(lines, base, bit, size, 0, 0, 0, 0)) {
+                    counts[size == 2 ? Technique.X_WING.ordinal() : Technique.SWORDFISH.ordinal()]++;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Picks size lines from first onwards whose positions together cover
+     * exactly size positions, then removes the value from those positions
+     * in every other line
+     */
+    private boolean findFish(int[] lines, int base, int bit, int size, int first, int picked,
+                             int chosen, int union) {
+        if (picked == size) {
+            if (Integer.bitCount(union) != size)
+                return false;
+
+            boolean changed = false;
+            for (int line = 0; line < layout.size; line++) {
+                if ((chosen & (1 << line)) != 0)
+                    continue;
+                for (int k = 0; k < layout.size; k++) {
+                    if ((union & (1 << k)) != 0)
+                        changed |= eliminate(layout.units[base + line][k], bit);
+                }
+            }
+            return changed;
+        }
+
+        for (int line = first; line < layout.size; line++) {
+            int count = Integer.bitCount(lines[line]);
+            if (count < 2 || count > size || Integer.bitCount(union | lines[line]) > size)
+                continue;
+            if (findFish(lines, base, bit, size, line + 1, picked + 1, chosen | (1 << line),
+                    union | lines[line]))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+     * Simple colouring. Cells where a value appears only twice in a unit are
+     * linked, since exactly one of them holds it. Each chain of links is
+     * coloured in two alternating colours, one of which is all true. If two
+     * cells of the same colour see each other, that colour is false. Any
+     * other cell that sees both colours cannot hold the value
+     */
+    private boolean chains() {
+        for (int bit = 1; bit <= layout.allCandidates; bit <<= 1) {
+            Arrays.fill(color, 0);
+            int nextColor = 1;
+
+            for (int start = 0; start < layout.cells; start++) {
+                if ((candidates[start] & bit) == 0 || color[start] != 0 || !isLinked(start, bit))
+                    continue;
+
+                // Colours nextColor and nextColor + 1 alternate along the chain
+                int head = 0, tail = 0;
+                queue[tail++] = start;
+                color[start] = nextColor;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    for (int peer : peers[cell]) {
+                        if (color[peer] == 0 && (candidates[peer] & bit) != 0 && isConjugate(cell, peer, bit)) {
+                            color[peer] = color[cell] == nextColor ? nextColor + 1 : nextColor;
+                            queue[tail++] = peer;
+                        }
+                    }
+                }
+
+                if (tail > 2 && resolveChain(tail, bit, nextColor)) {
+                    counts[Technique.CHAIN.ordinal()]++;
+                    return true;
+                }
+                nextColor += 2;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Applies the colouring rules to the chain of tail cells in the queue
+     */
+    private boolean resolveChain(int tail, int bit, int first) {
+        // Two cells of one colour in the same unit make that colour false
+        for (int a = 0; a < tail; a++) {
+            for (int b = a + 1; b < tail; b++) {
+                int cellA = queue[a], cellB = queue[b];
+                if (color[cellA] == color[cellB] && sees(cellA, cellB)) {
+                    boolean changed = false;
+                    for (int c = 0; c < tail; c++) {
+                        if (color[queue[c]] == color[cellA])
+                            changed |= eliminate(queue[c], bit);
+                    }
+                    return changed;
+                }
+            }
+        }
+
+        // A cell outside the chain that sees both colours
+        boolean changed = false;
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if ((candidates[cell] & bit) == 0 || color[cell] == first || color[cell] == first + 1)
+                continue;
+
+            boolean seesFirst = false, seesSecond = false;
+            for (int c = 0; c < tail; c++) {
+                if (sees(cell, queue[c])) {
+                    if (color[queue[c]] == first)
+                        seesFirst = true;
+                    else
+                        seesSecond = true;
+                }
+            }
+            if (seesFirst && seesSecond)
+                changed |= eliminate(cell, bit);
+        }
+        return changed;
+    }
+
+    /*
+     * Returns true if the value appears only twice in a unit of the cell
+     */
+    private boolean isLinked(int cell, int bit) {
+        for (int peer : peers[cell]) {
+            if ((candidates[peer] & bit) != 0 && isConjugate(cell, peer, bit))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+     * Returns true if two cells are the only places for a value in a unit
+     * they share
+     */
+    private boolean isConjugate(int a, int b, int bit) {
+        int size = layout.size;
+        return (layout.rowOf[a] == layout.rowOf[b] && countIn(layout.units[layout.rowOf[a]], bit) == 2)
+                || (layout.columnOf[a] == layout.columnOf[b]
+                        && countIn(layout.units[size + layout.columnOf[a]], bit) == 2)
+                || (layout.boxOf[a] == layout.boxOf[b]
+                        && countIn(layout.units[size * 2 + layout.boxOf[a]], bit) == 2);
+    }
+
+    /*
+     * Returns the number of cells of a unit that have the candidate
+     */
+    private int countIn(int[] unit, int bit) {
+        int count = 0;
+        for (int cell : unit) {
+            if ((candidates[cell] & bit) != 0)
+                count++;
+        }
+        return count;
+    }
+
+    /*
+     * Returns true if two cells share a row, column or box
+     */
+    private boolean sees(int a, int b) {
+        return layout.rowOf[a] == layout.rowOf[b] || layout.columnOf[a] == layout.columnOf[b]
+                || layout.boxOf[a] == layout.boxOf[b];
+    }
+
+    /*
+     * Removes the candidates in mask from an empty cell. Returns true if any were there
+     */
+    private boolean eliminate(int cell, int mask) {
+        if ((candidates[cell] & mask) == 0)
+            return false;
+        candidates[cell] &= ~mask;
+        return true;
+    }
+
+    /*
+     * Fills a cell and removes its value from the candidates of its peers
+     */
+    private void place(int cell, int value) {
+        int bit = SolverEngine.bit(value);
+        values[cell] = value;
+        candidates[cell] = 0;
+        remaining--;
+        for (int peer : peers[cell])
+            candidates[peer] &= ~bit;
+    }
+
+    /*
+     * Grades every puzzle from the listed files, or from standard input, and
+     * prints the puzzle number, hardest technique, difficulty band and the
+     * number of uses of each technique. A summary goes to standard error
+     */
+    public static void main(String[] args) throws IOException {
+        DifficultyGrader grader = new DifficultyGrader();
+        int[] totals = new int[LADDER.length];
+        long graded = 0, start = System.nanoTime();
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+
+        ArrayList<PuzzleReader> readers = new ArrayList<>();
+        if (args.length == 0)
+            readers.add(new PuzzleReader(new InputStreamReader(System.in)));
+        for (String arg : args)
+            readers.add(new PuzzleReader(new FileReader(arg)));
+
+        for (PuzzleReader reader : readers) {
+            int[] puzzle;
+            while ((puzzle = reader.next()) != null) {
+                Technique hardest = grader.grade(puzzle);
+                totals[hardest.ordinal()]++;
+
+                StringBuilder line = new StringBuilder();
+                line.append(++graded).append('\t').append(hardest).append('\t').append(grader.getDifficulty());
+                for (Technique technique : LADDER)
+                    line.append('\t').append(grader.getCount(technique));
+                output.write(line.append('\n').toString());
+            }
+            reader.close();
+        }
+        output.flush();
+
+        System.err.printf("%d puzzles, %.1f us each%n", graded, (System.nanoTime() - start) / 1e3 / Math.max(graded, 1));
+        for (Technique technique : LADDER)
+            System.err.printf("%-14s %d%n", technique, totals[technique.ordinal()]);
+    }
+}
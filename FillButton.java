@@ -7,30 +7,32 @@
 
 package sudoku;
 
-import javafx.scene.paint.Color;
-
 class FillButton extends SudokuButton {
     private final boolean updateable = false;
+    private int value; // Stored separately because values above 9 are shown as letters
 
     /*
-     * Always 50 wide and Color.ANTIQUEWHITE
+     * Always square and antique white. 50 wide on the 9x9 board and
+     * smaller on the larger boards
      */
-    FillButton(int value) {
-        super(String.valueOf(value), 50, Color.ANTIQUEWHITE);
+    FillButton(int value, double size) {
+        super(BoardLayout.valueText(value), size, size);
+        this.value = value;
+        getStyleClass().add("fill-button");
     }
 
     /*
      * Returns the FillButton to the default border after being unselected
      */
     public void setBlockBorders(int i, int j) {
-        updateBorder(DEFAULT_BORDER);
+        showSelected(false);
     }
 
     /*
      * Returns the integer value represented by the button's text. Used to update Cells
      */
     public int getValue() {
-        return Integer.parseInt(getText());
+        return value;
     }
 
     /*
@@ -52,7 +54,8 @@ class FillButton extends SudokuButton {
      * updateValue() is never necessary for FillButton, but is required with click handlers
      */
     public void updateValue(int value, boolean undo) {
-        setText(String.valueOf(value));
+        this.value = value;
+        setText(BoardLayout.valueText(value));
     }
 
     /*
@@ -0,0 +1,241 @@
+/**
+ * This class is a copy of a game in progress that can be written to a file
+ * and restored exactly: the puzzle (difficulty, board number, givens and
+ * solution), the value and updateable flag of every Cell, the undo and redo
+ * history and the remaining hints. A snapshot is taken on the FX thread,
+ * which only copies ints, and can then be saved from any thread.
+ *
+ * The file is a compact binary format of under 300 bytes plus two for every
+ * undo or redo step: a magic number and version, the difficulty, board
+ * number and remaining hints, one byte per cell for the givens, the solution
+ * and the current values, the updateable flags as a bitset, then the undo
+ * and redo stacks as (cell, value) byte pairs.
+ */
+
+package sudoku;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+public class GameSnapshot {
+    private static final int MAGIC = 0x53415645; // "SAVE"
+    private static final int VERSION = 1;
+    private static final int CELLS = SolverEngine.CELLS;
+
+    private final int difficulty;
+    private final int boardNumber;
+    private final int hintsRemaining;
+    private final int[] givens;
+    private final int[] solution;
+    private final int[] values;
+    private final boolean[] updateable;
+    // Undo and redo stacks as {cell indexes, values to go back to}, oldest first
+    private final int[][] undo;
+    private final int[][] redo;
+
+    GameSnapshot(int difficulty, int boardNumber, int hintsRemaining, int[] givens, int[] solution,
+                 int[] values, boolean[] updateable, int[][] undo, int[][] redo) {
+        this.difficulty = difficulty;
+        this.boardNumber = boardNumber;
+        this.hintsRemaining = hintsRemaining;
+        this.givens = givens;
+        this.solution = solution;
+        this.values = values;
+        this.updateable = updateable;
+        this.undo = undo;
+        this.redo = redo;
+    }
+
+    /*
+     * Copies the state of the board being played. Must be called on the FX thread
+     */
+    public static GameSnapshot capture(Board board, HintController hintController) {
+        Puzzle puzzle = board.getPuzzle();
+        Cell[][] cells = board.getCurrentBoard();
+        int[] givens = new int[CELLS], solution = new int[CELLS], values = new int[CELLS];
+        boolean[] updateable = new boolean[CELLS];
+
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                int k = i * 9 + j;
+                givens[k] = puzzle.getValue(i, j);
+                solution[k] = puzzle.getSolutionValue(i, j);
+                values[k] = cells[i][j].getValue();
+                updateable[k] = cells[i][j].getUpdateable();
+            }
+        }
+
+        return new GameSnapshot(puzzle.getDifficulty(), puzzle.getBoardNumber(), hintController.getRemaining(),
+                givens, solution, values, updateable, board.undoRedoController.getUndoHistory(cells),
+                board.undoRedoController.getRedoHistory(cells));
+    }
+
+    /*
+     * Returns the puzzle of the saved game, which is used to build its board
+     */
+    public Puzzle getPuzzle() {
+        return new Puzzle(givens.clone(), solution.clone(), difficulty, boardNumber);
+    }
+
+    /*
+     * Returns the value of every cell, row by row
+     */
+    int[] getValues() {
+        return values.clone();
+    }
+
+    /*
+     * Returns the updateable flag of every cell, row by row
+     */
+    boolean[] getUpdateable() {
+        return updateable.clone();
+    }
+
+    /*
+     * Returns the undo stack as {cell indexes, values to go back to}, oldest first
+     */
+    int[][] getUndo() {
+        return new int[][] {undo[0].clone(), undo[1].clone()};
+    }
+
+    /*
+     * Returns the redo stack in the same form as getUndo()
+     */
+    int[][] getRedo() {
+        return new int[][] {redo[0].clone(), redo[1].clone()};
+    }
+
+    /*
+     * Returns the number of hints left
+     */
+    int getHintsRemaining() {
+        return hintsRemaining;
+    }
+
+    /*
+     * Puts the saved values, flags, history and hints back on a board that
+     * was just built from getPuzzle()
+     */
+    public void restore(Board board, HintController hintController) {
+        Cell[][] cells = board.getCurrentBoard();
+        for (int k = 0; k < CELLS; k++)
+            cells[k / 9][k % 9].restore(values[k], updateable[k]);
+
+        board.undoRedoController.restore(cells, undo, redo);
+        hintController.setRemaining(hintsRemaining);
+        board.checkSolution(false); // Updates the possible values of every Cell
+    }
+
+    /*
+     * Writes the snapshot. It goes to a temporary file first, so a save that
+     * is interrupted never replaces the last complete one
+     */
+    public void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeByte(difficulty);
+            output.writeInt(boardNumber);
+            output.writeInt(hintsRemaining);
+
+            for (int k = 0; k < CELLS; k++)
+                output.writeByte(givens[k]);
+            for (int k = 0; k < CELLS; k++)
+                output.writeByte(solution[k]);
+            for (int k = 0; k < CELLS; k++)
+                output.writeByte(values[k]);
+
+            // Updateable flags packed eight to a byte
+            for (int k = 0; k < CELLS; k += 8) {
+                int packed = 0;
+                for (int b = 0; b < 8 && k + b < CELLS; b++) {
+                    if (updateable[k + b])
+                        packed |= 1 << b;
+                }
+                output.writeByte(packed);
+            }
+
+            writeStack(output, undo);
+            writeStack(output, redo);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Reads a saved snapshot. Returns null if there is none or it cannot be read
+     */
+    public static GameSnapshot load(File file) {
+        if (!file.exists())
+            return null;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION)
+                return null;
+
+            int difficulty = input.readByte(), boardNumber = input.readInt(), hintsRemaining = input.readInt();
+            int[] givens = readBytes(input), solution = readBytes(input), values = readBytes(input);
+            boolean[] updateable = new boolean[CELLS];
+            for (int k = 0; k < CELLS; k += 8) {
+                int packed = input.readUnsignedByte();
+                for (int b = 0; b < 8 && k + b < CELLS; b++)
+                    updateable[k + b] = (packed & (1 << b)) != 0;
+            }
+
+            int[][] undo = readStack(input), redo = readStack(input);
+            return new GameSnapshot(difficulty, boardNumber, hintsRemaining, givens, solution, values,
+                    updateable, undo, redo);
+        }
+        catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /*
+     * Writes the length of a stack and then its (cell, value) pairs
+     */
+    private static void writeStack(DataOutputStream output, int[][] stack) throws IOException {
+        output.writeInt(stack[0].length);
+        for (int k = 0; k < stack[0].length; k++) {
+            output.writeByte(stack[0][k]);
+            output.writeByte(stack[1][k]);
+        }
+    }
+
+    /*
+     * Reads a stack written by writeStack()
+     */
+    private static int[][] readStack(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > 1 << 20)
+            throw new IOException("Corrupt save file");
+
+        int[][] stack = new int[2][count];
+        for (int k = 0; k < count; k++) {
+            stack[0][k] = input.readUnsignedByte();
+            stack[1][k] = input.readUnsignedByte();
+            if (stack[0][k] >= CELLS)
+                throw new IOException("Corrupt save file");
+        }
+        return stack;
+    }
+
+    /*
+     * Reads one byte per cell
+     */
+    private static int[] readBytes(DataInputStream input) throws IOException {
+        int[] bytes = new int[CELLS];
+        for (int k = 0; k < CELLS; k++)
+            bytes[k] = input.readUnsignedByte();
+        return bytes;
+    }
+}
@@ -1,7 +1,8 @@
 /**
  * The HintController class is a class the controls the ability to provide a hint.
- * The number of hints allowed depends on the board difficulty. It extends
- * SolverController because it utilizes a solved board to provide the hints.
+ * The number of hints allowed depends on the board difficulty. The hints come
+ * from the solution stored with the Puzzle, so nothing is solved here and no
+ * solver backend is needed.
  */
 
 package sudoku;
@@ -12,29 +13,41 @@ import javafx.util.Duration;
 
 import java.util.ArrayList;
 
-public class HintController extends SolverController{
+public class HintController {
+    private final Board board;
+    private final BoardLayout layout; // Size of the board the hints are for
+    private final int[][] solution; // The solved board the hint values are taken from
+    private Cell[][] currentBoard;
     // Stores [row,column] pairs of the empty cells available to populate with a hint
     private ArrayList<int[]> available;
     private Tooltip hoverHint;
     private int remaining;
 
-    HintController(Board board, SceneController controller) {
-        super(board, controller);
-        setInitialBoard();
-        solveWithTimeout(); // Solves the board using a super method so that the correct value can be hinted
+    HintController(Board board) {
+        this.board = board;
+        layout = Board.getLayout();
+        solution = new int[layout.size][layout.size];
+        // The puzzle was solved when it was made, so nothing is solved here
+        Puzzle puzzle = board.getPuzzle();
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                solution[i][j] = puzzle.getSolutionValue(i, j);
+            }
+        }
         setInitialRemaining(board.getDifficulty()); // uses the current difficulty of the board
         initializeAvailable();
     }
 
     /*
-     * Overrides the SolverController handleClick() method. When the hint button is clicked,
-     * if a particular cell is selected, that is the cell that gets the hint. If a Cell is
-     * not selected, a random available cell gets updated
+     * Handler method for when the Hint button is clicked. If a particular cell is
+     * selected, that is the cell that gets the hint. If a Cell is not selected, a
+     * random available cell gets updated
      */
-    @Override
     public void handleClick() {
         // There is a minimum number of hints allowed per game
         if (remaining > 0) {
+            // Decremented first so the autosave after the hint sees the new count
+            remaining--; // Decrement the remaining allowed hints
             initializeAvailable(); // Update which cells are empty to provide a hint
 
             // If a Cell is selected, that Cell gets the hint
@@ -49,7 +62,6 @@ public class HintController extends SolverController{
                 int row = available.get(availableIndex)[0], column = available.get(availableIndex)[1];
                 getHint(row, column);
             }
-            remaining--; // Decrement the remaining allowed hints
             updateTipText();
         }
     }
@@ -62,8 +74,8 @@ public class HintController extends SolverController{
         currentBoard = board.getCurrentBoard();
         available = new ArrayList<>();
 
-        for (int i = 0; i < 9; i ++) {
-            for (int j = 0; j < 9; j++) {
+        for (int i = 0; i < layout.size; i ++) {
+            for (int j = 0; j < layout.size; j++) {
                 // Only stores empty cells
                 if (currentBoard[i][j].getValue() == 0) {
                     int[] addPair = {i,j}; // Creates a [row,column] pair
@@ -90,6 +102,22 @@ public class HintController extends SolverController{
         }
     }
 
+    /*
+     * Returns the number of hints left, which is saved with the game
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /*
+     * Sets the number of hints left when a saved game is restored
+     */
+    public void setRemaining(int remaining) {
+        this.remaining = remaining;
+        if (hoverHint != null)
+            updateTipText();
+    }
+
     /*
      * When a hint is used, remaining is decremented. This method updates
      * the Tooltip's text to the new remaining number of hints.
@@ -104,14 +132,21 @@ public class HintController extends SolverController{
     private void getHint(int row, int column) {
         // This is not an undo action, but the undo argument is set to true so that the
         // hint update is not added to the UndoStack
-        currentBoard[row][column].updateValue(boardValues[row][column], true);
+        currentBoard[row][column].updateValue(solution[row][column], true);
     }
 
     /*
      * Creates and installs a Tooltip, which shows the remaining number of hints allowed
-     * when hovering over the Hint MenuButton
+     * when hovering over the Hint MenuButton. The Hint button is kept between games,
+     * so a Tooltip installed for an earlier game is reused
      */
     public void installHintTooltip(MenuButton hintButton) {
+        if (hintButton.getTooltip() != null) {
+            hoverHint = hintButton.getTooltip();
+            updateTipText();
+            return;
+        }
+
         hoverHint = new Tooltip("Hints Remaining: " + remaining);
         hoverHint.setShowDelay(Duration.seconds(1.25)); // Hover for 1.25 seconds before showing
         hoverHint.setHideDelay(Duration.seconds(0)); // Hide immediately after moving/clicking
@@ -1,12 +1,23 @@
 /**
  * This class is a driver class that is only used to start the
  * applicaton, overriding the start() method from javafx.Application.
+ * Only the Main Menu is built before the window is shown; the boards
+ * and other scenes are built once the first frame is drawn or when they
+ * are first needed. Launching with -Dsudoku.timeFirstFrame=true prints
+ * the time from the JVM starting to that first frame so startup can be
+ * tracked. -Dsudoku.exitAfterFirstFrame=true also prints it and then
+ * exits, which is how appcds.sh records the startup classes and times a
+ * launch.
  */
 
 package sudoku;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
+import java.time.Duration;
+import java.time.Instant;
 
 public class Main extends Application {
     @Override
@@ -15,6 +26,38 @@ public class Main extends Application {
 
         SceneController controller = new SceneController(primaryStage);
         primaryStage.setScene(controller.getMainMenu());
+        // Writes the autosave before the application exits
+        primaryStage.setOnCloseRequest(e -> controller.close());
         primaryStage.show();
+        afterFirstFrame(controller);
+    }
+
+    /*
+     * Waits for the first frame to be drawn, reports the time it took if
+     * asked to and then lets the controller build the rest of the application
+     */
+    private void afterFirstFrame(SceneController controller) {
+        new AnimationTimer() {
+            private int pulses;
+
+            @Override
+            public void handle(long now) {
+                // Timers run before a pulse draws, so the first frame is done by the second pulse
+                if (++pulses < 2)
+                    return;
+                stop();
+
+                boolean exit = Boolean.getBoolean("sudoku.exitAfterFirstFrame");
+                if (exit || Boolean.getBoolean("sudoku.timeFirstFrame")) {
+                    ProcessHandle.current().info().startInstant().ifPresent(started -> System.out.println(
+                            "Time to first frame: " + Duration.between(started, Instant.now()).toMillis() + " ms"));
+                }
+
+                if (exit)
+                    Platform.exit();
+                else
+                    controller.warmUp();
+            }
+        }.start();
     }
 }
@@ -7,27 +7,36 @@
 
 package sudoku;
 
+import javafx.css.PseudoClass;
 import javafx.event.EventHandler;
 import javafx.scene.input.MouseEvent;
-import javafx.scene.paint.Color;
 
 public class MenuButton extends SudokuButton{
     private final boolean updateable = false;
+    // Buttons that switch something on are drawn like a selected Cell while it is on
+    private static final PseudoClass ON = PseudoClass.getPseudoClass("on");
 
     /*
      * Uses the SudokuButton constructor, but also adds the MouseClicked handler.
-     * All have variable widths but the same Color.KHAKI
+     * All have variable widths but the same khaki background from the stylesheet
      */
     MenuButton(String label, double width, EventHandler<? super MouseEvent> expression) {
-        super(label, width, Color.KHAKI);
+        super(label, width);
+        getStyleClass().add("sudoku-menu-button");
         setOnMouseClicked(expression);
     }
 
     /*
-     * MenuButtons can only have the default border
+     * MenuButtons are never selected, so their border never changes
      */
     public void setBlockBorders(int i, int j) {
-        updateBorder(DEFAULT_BORDER);
+    }
+
+    /*
+     * Shows whether the setting this button switches is on
+     */
+    public void showOn(boolean on) {
+        pseudoClassStateChanged(ON, on);
     }
 
     /*
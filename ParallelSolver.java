@@ -0,0 +1,218 @@
+/**
+ * This class is the parallel solver backend. The top of the search tree is
+ * split at the most constrained empty cells, one subtree for every candidate,
+ * and the subtrees run as RecursiveTasks on the common ForkJoinPool so idle
+ * threads steal work from busy ones. Each leaf subtree is searched by its own
+ * SolverEngine. As soon as the limit is reached the shared stop flag is set,
+ * which every other engine checks and then abandons its search.
+ */
+
+package sudoku;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ParallelSolver extends SudokuSolver {
+    private static final int SPLIT_DEPTH = 4; // Number of cells split on before searching sequentially
+
+    private final int[] loaded; // The loaded values, split on every count
+    private final int[] grid; // The loaded values and later the first solution
+    private final AtomicBoolean stop = new AtomicBoolean(); // Set once the limit is reached
+    private final AtomicInteger solutionCount = new AtomicInteger();
+    private final AtomicReference<int[]> firstSolution = new AtomicReference<>();
+    private final AtomicLong totalNodes = new AtomicLong(); // Nodes of every leaf engine
+    private boolean loadValid; // False if the loaded values already conflict
+    private volatile boolean timedOut;
+    private int limit;
+
+    ParallelSolver() {
+        this(BoardLayout.STANDARD);
+    }
+
+    ParallelSolver(BoardLayout layout) {
+        super(layout);
+        loaded = new int[layout.cells];
+        grid = new int[layout.cells];
+    }
+
+    /*
+     * Copies the passed values. A SolverEngine is used to check the givens
+     */
+    @Override
+    public boolean load(int[] values) {
+        System.arraycopy(values, 0, loaded, 0, layout.cells);
+        System.arraycopy(values, 0, grid, 0, layout.cells);
+        loadValid = new SolverEngine(layout).load(values);
+        return loadValid;
+    }
+
+    /*
+     * Splits the loaded values into subtrees and waits for the pool to finish
+     * them or for the limit to be reached
+     */
+    @Override
+    public int countSolutions(int limit) throws TimeoutException {
+        startClock();
+        this.limit = limit;
+        stop.set(false);
+        solutionCount.set(0);
+        firstSolution.set(null);
+        totalNodes.set(0);
+        timedOut = false;
+
+        if (!loadValid)
+            return 0;
+
+        ForkJoinPool.commonPool().invoke(new SplitTask(loaded.clone(), 0));
+
+        if (timedOut && solutionCount.get() < limit)
+            throw new TimeoutException();
+
+        int[] solution = firstSolution.get();
+        if (solution != null)
+            System.arraycopy(solution, 0, grid, 0, layout.cells);
+        return Math.min(solutionCount.get(), limit);
+    }
+
+    /*
+     * A subtree of the search. Near the top of the tree it forks one task per
+     * candidate of the most constrained cell, below SPLIT_DEPTH it searches
+     */
+    private class SplitTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized
+        private final int[] values;
+        private final int depth;
+
+        SplitTask(int[] values, int depth) {
+            this.values = values;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Void compute() {
+            // Another subtree may have reached the limit before this one started
+            if (stop.get())
+                return null;
+
+            int[] candidates = new int[layout.cells];
+            int cell = mostConstrainedCell(layout, values, candidates);
+
+            if (depth >= SPLIT_DEPTH || cell < 0) {
+                search();
+                return null;
+            }
+
+            // A cell without candidates means this subtree has no solutions
+            int mask = candidates[cell];
+            if (mask == 0)
+                return null;
+
+            SplitTask[] tasks = new SplitTask[Integer.bitCount(mask)];
+            for (int t = 0; mask != 0; t++) {
+                int lowest = mask & -mask;
+                mask ^= lowest;
+
+                int[] child = values.clone();
+                child[cell] = Integer.numberOfTrailingZeros(lowest) + 1;
+                tasks[t] = new SplitTask(child, depth + 1);
+            }
+            invokeAll(tasks);
+            return null;
+        }
+
+        /*
+         * Searches this subtree with its own engine, which also stops when
+         * the shared stop flag is set or the overall deadline has passed
+         */
+        private void search() {
+            SolverEngine engine = new SolverEngine(layout) {
+                @Override
+                protected boolean shouldStop() {
+                    // Called every CHECK_INTERVAL nodes, so it also publishes the progress
+                    totalNodes.addAndGet(CHECK_INTERVAL);
+                    // Whichever subtree checks first shows its path to a live view
+                    if (ParallelSolver.this.isSnapshotRequested())
+                        ParallelSolver.this.publishSnapshot(this);
+                    return stop.get() || ParallelSolver.this.shouldStop();
+                }
+            };
+
+            try {
+                engine.load(values);
+                int found = engine.countSolutions(limit);
+
+                if (found > 0) {
+                    firstSolution.compareAndSet(null, engine.getGrid().clone());
+                    if (solutionCount.addAndGet(found) >= limit)
+                        stop.set(true);
+                }
+            }
+            catch (TimeoutException ex) {
+                // Only a real timeout is reported, not another subtree stopping this one
+                if (!stop.get())
+                    timedOut = true;
+                stop.set(true);
+            }
+            // The full intervals were already added by shouldStop()
+            totalNodes.addAndGet(engine.getNodeCount() % CHECK_INTERVAL);
+        }
+    }
+
+    /*
+     * Fills candidates with the candidate mask of every empty cell and returns
+     * the empty cell with the fewest candidates, or -1 if the grid is full
+     */
+    private static int mostConstrainedCell(BoardLayout layout, int[] values, int[] candidates) {
+        int[] rowUsed = new int[layout.size], columnUsed = new int[layout.size], boxUsed = new int[layout.size];
+
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (values[cell] != 0) {
+                int mask = SolverEngine.bit(values[cell]);
+                rowUsed[layout.rowOf[cell]] |= mask;
+                columnUsed[layout.columnOf[cell]] |= mask;
+                boxUsed[layout.boxOf[cell]] |= mask;
+            }
+        }
+
+        int best = -1, bestCount = layout.size + 1;
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (values[cell] != 0)
+                continue;
+
+            candidates[cell] = ~(rowUsed[layout.rowOf[cell]] | columnUsed[layout.columnOf[cell]]
+                    | boxUsed[layout.boxOf[cell]]) & layout.allCandidates;
+
+            int count = Integer.bitCount(candidates[cell]);
+            if (count < bestCount) {
+                best = cell;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public long getNodeCount() {
+        return totalNodes.get();
+    }
+
+    @Override
+    public long getProgress() {
+        return totalNodes.get();
+    }
+
+    @Override
+    public int[] getGrid() {
+        return grid;
+    }
+
+    @Override
+    public String getName() {
+        return "Parallel";
+    }
+}
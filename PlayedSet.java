@@ -0,0 +1,69 @@
+/**
+ * This class remembers which boards of a puzzle file have been started, so
+ * boards are not repeated after a restart. It is a bitset with one bit per
+ * board, memory mapped from a file next to the puzzle file
+ * (easy-puzzles.played for easy-puzzles.txt or .bin). Marking a board sets
+ * its bit in place and the operating system writes the page back, so there
+ * is nothing to parse at startup or save at exit; a million boards take
+ * 125 KB. An 8 byte header holds a magic number and the board count, and a
+ * file made for a different count is cleared. If the file cannot be
+ * written, the set is kept in memory for this session only.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class PlayedSet {
+    private static final int MAGIC = 0x504c4159; // "PLAY"
+    private static final int HEADER = 8;
+
+    private final ByteBuffer bits; // Header then one bit per board, mapped or in memory
+
+    private PlayedSet(ByteBuffer bits, int size) {
+        this.bits = bits;
+
+        if (bits.getInt(0) != MAGIC || bits.getInt(4) != size) {
+            for (int k = HEADER; k < bits.limit(); k++)
+                bits.put(k, (byte) 0);
+            bits.putInt(0, MAGIC);
+            bits.putInt(4, size);
+        }
+    }
+
+    /*
+     * Maps the played file for a puzzle file of size boards, creating it if
+     * needed. Falls back to a set in memory if the file cannot be mapped
+     */
+    public static PlayedSet open(File file, int size) {
+        int length = HEADER + (size + 7) / 8;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the mapping outlives the channel
+            return new PlayedSet(channel.map(FileChannel.MapMode.READ_WRITE, 0, length), size);
+        }
+        catch (IOException ex) {
+            return new PlayedSet(ByteBuffer.allocate(length), size);
+        }
+    }
+
+    /*
+     * Returns true if the board, numbered from 1, has been started before
+     */
+    public synchronized boolean isPlayed(int boardNumber) {
+        int k = boardNumber - 1;
+        return (bits.get(HEADER + k / 8) & (1 << (k % 8))) != 0;
+    }
+
+    /*
+     * Records that the board, numbered from 1, has been started
+     */
+    public synchronized void markPlayed(int boardNumber) {
+        int k = boardNumber - 1, position = HEADER + k / 8;
+        bits.put(position, (byte) (bits.get(position) | (1 << (k % 8))));
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * This class holds one 9x9 puzzle ready to be played: its given values, its
+ * solution, its difficulty and the number of the board in its puzzle file
+ * (0 for a generated board). Puzzles are made by the PuzzlePool on a
+ * background thread, so a new game never has to read or solve anything.
+ */
+
+package sudoku;
+
+public class Puzzle {
+    private final int[] givens;
+    private final int[] solution;
+    private final int difficulty;
+    private final int boardNumber; // Board number in the puzzle file, 0 if generated
+
+    Puzzle(int[] givens, int[] solution, int difficulty, int boardNumber) {
+        this.givens = givens;
+        this.solution = solution;
+        this.difficulty = difficulty;
+        this.boardNumber = boardNumber;
+    }
+
+    /*
+     * Returns the given value at a row and column, 0 if the cell is empty
+     */
+    public int getValue(int row, int column) {
+        return givens[row * 9 + column];
+    }
+
+    /*
+     * Returns the solved value at a row and column
+     */
+    public int getSolutionValue(int row, int column) {
+        return solution[row * 9 + column];
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public int getBoardNumber() {
+        return boardNumber;
+    }
+
+    /*
+     * Returns the title shown above the board, such as "Easy - 7"
+     */
+    public String getTitle() {
+        String name;
+        switch (difficulty) {
+            case 1:
+                name = "Easy";
+                break;
+            case 2:
+                name = "Medium";
+                break;
+            default:
+                name = "Hard";
+        }
+        return name + " - " + (boardNumber > 0 ? String.valueOf(boardNumber) : "New");
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * This class reads the binary puzzle corpus format, which stores each 9x9
+ * puzzle in 41 bytes. Two cells are packed into every byte, the first in the
+ * high four bits, so the 81 cells take 40 and a half bytes. The spare low
+ * four bits of the last byte hold the difficulty band of that puzzle as
+ * measured by the DifficultyGrader, or 0 if it was not graded.
+ *
+ * The file starts with a 16 byte header: the magic number, the format
+ * version, the difficulty of the whole corpus (0 if mixed) and the number of
+ * puzzles. The file is memory mapped, so a puzzle is read straight from the
+ * page cache without any parsing. A single mapping covers up to 2 GB, which
+ * is about 52 million puzzles.
+ *
+ * main converts puzzle text files, in any layout PuzzleReader accepts:
+ * Usage: java sudoku.PuzzleCorpus [-d difficulty] [-g] output.bin [input ...]
+ * With -g every puzzle is graded while it is converted.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+public class PuzzleCorpus extends PuzzleFile {
+    private static final int MAGIC = 0x53444b43; // "SDKC"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    public static final int RECORD = 41; // Bytes per puzzle
+    private static final int BATCH = 4096; // Puzzles written at once by the converter
+
+    private final MappedByteBuffer buffer;
+    private final int difficulty;
+    private final int count;
+
+    private PuzzleCorpus(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("Not a puzzle corpus");
+
+        difficulty = buffer.getInt(8);
+        count = buffer.getInt(12);
+        if ((long) HEADER + (long) count * RECORD > buffer.limit())
+            throw new IOException("Puzzle corpus is shorter than its header");
+    }
+
+    /*
+     * Maps a corpus file. The mapping stays valid after the channel is closed
+     */
+    public static PuzzleCorpus open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Puzzle corpus is larger than 2 GB");
+            return new PuzzleCorpus(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /*
+     * Returns the difficulty of the whole corpus, 0 if it is mixed
+     */
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    /*
+     * Returns the graded difficulty band of a puzzle, 0 if it was not graded
+     */
+    public int getDifficulty(int boardNumber) {
+        return buffer.get(offset(boardNumber) + RECORD - 1) & 0x0f;
+    }
+
+    @Override
+    public int[] read(int boardNumber) {
+        int[] values = new int[SolverEngine.CELLS];
+        int start = offset(boardNumber);
+
+        // Absolute gets, so several threads can read the same buffer
+        for (int k = 0; k < RECORD; k++) {
+            int packed = buffer.get(start + k) & 0xff;
+            values[k * 2] = packed >>> 4;
+            if (k * 2 + 1 < values.length)
+                values[k * 2 + 1] = packed & 0x0f;
+        }
+        return values;
+    }
+
+    /*
+     * Returns the position of a puzzle's record in the file
+     */
+    private int offset(int boardNumber) {
+        if (boardNumber < 1 || boardNumber > count)
+            throw new IndexOutOfBoundsException("No puzzle " + boardNumber);
+        return HEADER + (boardNumber - 1) * RECORD;
+    }
+
+    /*
+     * Packs a puzzle and its graded difficulty into the next record of a buffer
+     */
+    private static void pack(int[] values, int grade, ByteBuffer record) {
+        for (int k = 0; k < RECORD; k++) {
+            int low = k * 2 + 1 < values.length ? values[k * 2 + 1] : grade;
+            record.put((byte) (values[k * 2] << 4 | low));
+        }
+    }
+
+    @Override
+    public void close() {
+        // The mapping is released when the buffer is garbage collected
+    }
+
+    /*
+     * Converts text puzzle files (or standard input) to one binary corpus
+     */
+    public static void main(String[] args) throws IOException {
+        int difficulty = 0;
+        boolean grade = false;
+        ArrayList<String> files = new ArrayList<>();
+
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "-d":
+                    difficulty = Integer.parseInt(args[++a]);
+                    break;
+                case "-g":
+                    grade = true;
+                    break;
+                default:
+                    files.add(args[a]);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java sudoku.PuzzleCorpus [-d difficulty] [-g] output.bin [input ...]");
+            System.exit(2);
+        }
+
+        DifficultyGrader grader = grade ? new DifficultyGrader() : null;
+        ArrayList<PuzzleReader> readers = new ArrayList<>();
+        if (files.size() == 1)
+            readers.add(new PuzzleReader(new InputStreamReader(System.in)));
+        for (String input : files.subList(1, files.size()))
+            readers.add(new PuzzleReader(new FileReader(input)));
+
+        long start = System.nanoTime();
+        int count = 0;
+        try (FileChannel output = FileChannel.open(new File(files.get(0)).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer records = ByteBuffer.allocate(BATCH * RECORD);
+            output.position(HEADER); // The header is written last, once the count is known
+
+            for (PuzzleReader reader : readers) {
+                int[] puzzle;
+                while ((puzzle = reader.next()) != null) {
+                    if (grader != null)
+                        grader.grade(puzzle);
+                    pack(puzzle, grader == null ? 0 : grader.getDifficulty(), records);
+                    count++;
+
+                    if (!records.hasRemaining()) {
+                        records.flip();
+                        while (records.hasRemaining())
+                            output.write(records);
+                        records.clear();
+                    }
+                }
+                reader.close();
+            }
+            records.flip();
+            while (records.hasRemaining())
+                output.write(records);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(difficulty).putInt(count).flip();
+            while (header.hasRemaining())
+                output.write(header, header.position());
+        }
+
+        System.err.printf("%d puzzles, %.1f s%n", count, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * This is an abstract class for puzzle files that can read any of their
+ * puzzles directly by number. open() prefers the binary corpus of a name
+ * (easy-puzzles.bin) and falls back to the indexed text file of the same
+ * name (easy-puzzles.txt).
+ */
+
+package sudoku;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+public abstract class PuzzleFile implements Closeable {
+    /*
+     * Returns the number of puzzles in the file
+     */
+    public abstract int size();
+
+    /*
+     * Returns the values of a puzzle, numbered from 1 like the boards
+     */
+    public abstract int[] read(int boardNumber) throws IOException;
+
+    /*
+     * Opens the binary corpus of a name if there is one, otherwise its text
+     * file. Throws an IOException if neither can be opened
+     */
+    public static PuzzleFile open(String name) throws IOException {
+        File corpus = new File(name + ".bin");
+        if (corpus.exists())
+            return PuzzleCorpus.open(corpus);
+        return PuzzleIndex.open(new File(name + ".txt"));
+    }
+}
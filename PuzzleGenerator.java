@@ -0,0 +1,139 @@
+/**
+ * This class creates new 9x9 puzzles so Play mode does not depend on the
+ * puzzle files. A random complete grid is made by filling the three boxes on
+ * the diagonal with shuffled values, which can never conflict, and letting a
+ * SolverEngine fill in the rest. Clues are then removed in symmetric pairs
+ * in a random order, and any pair whose removal allows a second solution is
+ * put back. Every puzzle therefore has exactly one solution. Removing stops
+ * once the clue count of the difficulty is reached, so easier puzzles keep
+ * more clues.
+ */
+
+package sudoku;
+
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+public class PuzzleGenerator {
+    // Clues to stop removing at for each difficulty, index 0 is unused
+    private static final int[] TARGET_CLUES = {0, 38, 32, 24};
+
+    private final BoardLayout layout = BoardLayout.STANDARD;
+    private final SolverEngine solver = new SolverEngine(layout);
+    private final Random random;
+    private final int[] solution = new int[layout.cells];
+    private final int[] order = new int[layout.cells / 2 + 1]; // Cells paired with their mirror cell
+
+    PuzzleGenerator() {
+        this(new Random());
+    }
+
+    PuzzleGenerator(Random random) {
+        this.random = random;
+    }
+
+    /*
+     * Returns the values of a new puzzle of the difficulty (1 to 3) with
+     * exactly one solution. The solution is available from getSolution()
+     * until the next puzzle is generated
+     */
+    public int[] generate(int difficulty) {
+        fillSolution();
+        int[] puzzle = solution.clone();
+        int clues = layout.cells, target = TARGET_CLUES[difficulty];
+
+        // Shuffle the first half of the cells, the centre included; each one
+        // is removed together with the cell mirrored through the centre
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1), temp = order[i];
+            order[i] = order[k];
+            order[k] = temp;
+        }
+
+        for (int i = 0; i < order.length && clues > target; i++) {
+            int cell = order[i], mirror = layout.cells - 1 - cell;
+            puzzle[cell] = 0;
+            puzzle[mirror] = 0;
+
+            if (isUnique(puzzle))
+                clues -= cell == mirror ? 1 : 2;
+            else {
+                puzzle[cell] = solution[cell];
+                puzzle[mirror] = solution[mirror];
+            }
+        }
+        return puzzle;
+    }
+
+    /*
+     * Returns the solution of the last generated puzzle
+     */
+    public int[] getSolution() {
+        return solution.clone();
+    }
+
+    /*
+     * Fills solution with a random complete grid. The diagonal boxes share
+     * no row or column, so any values in them are valid, and the rest of the
+     * grid always has at least one solution
+     */
+    private void fillSolution() {
+        int[] values = new int[layout.cells];
+        int[] digits = new int[layout.size];
+        for (int d = 0; d < layout.size; d++)
+            digits[d] = d + 1;
+
+        for (int box = 0; box < layout.size; box += layout.boxSize + 1) {
+            for (int d = digits.length - 1; d > 0; d--) {
+                int k = random.nextInt(d + 1), temp = digits[d];
+                digits[d] = digits[k];
+                digits[k] = temp;
+            }
+            int[] cells = layout.units[layout.size * 2 + box];
+            for (int k = 0; k < layout.size; k++)
+                values[cells[k]] = digits[k];
+        }
+
+        solver.load(values);
+        try {
+            solver.solve();
+        }
+        catch (TimeoutException ex) {
+            // No timeout is set, so the solve always finishes
+            throw new IllegalStateException(ex);
+        }
+        System.arraycopy(solver.getGrid(), 0, solution, 0, layout.cells);
+    }
+
+    /*
+     * Returns true if the values have exactly one solution
+     */
+    private boolean isUnique(int[] values) {
+        solver.load(values);
+        try {
+            return solver.hasUniqueSolution();
+        }
+        catch (TimeoutException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /*
+     * Prints puzzles one per line, so generated puzzles can be read by
+     * BatchSolver. Usage: java sudoku.PuzzleGenerator [count] [difficulty]
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int difficulty = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        PuzzleGenerator generator = new PuzzleGenerator();
+
+        long start = System.nanoTime();
+        StringBuilder lines = new StringBuilder();
+        for (int p = 0; p < count; p++)
+            lines.append(PuzzleReader.toLine(generator.generate(difficulty))).append('\n');
+        System.out.print(lines);
+        System.err.printf("%d puzzles, %.2f ms each%n", count, (System.nanoTime() - start) / 1e6 / count);
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * This class gives random access to the puzzles of a text puzzle file. The
+ * byte offset where every puzzle starts is found once by scanning the file
+ * and saved to a sidecar file next to it (easy-puzzles.txt.idx for
+ * easy-puzzles.txt), which is reused while the puzzle file is unchanged.
+ * A puzzle is then read with one positioned FileChannel read, so loading
+ * puzzle 1,000,000 costs the same as loading puzzle 1. The file layouts are
+ * the ones PuzzleReader accepts, and puzzles are numbered in the same order.
+ */
+
+package sudoku;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PuzzleIndex extends PuzzleFile {
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+
+    private final FileChannel channel;
+    private final long[] offsets; // Start of every puzzle, then the end of the last one
+
+    private PuzzleIndex(File puzzles, long[] offsets) throws IOException {
+        this.offsets = offsets;
+        channel = FileChannel.open(puzzles.toPath(), StandardOpenOption.READ);
+    }
+
+    /*
+     * Opens a puzzle file, loading its sidecar index or building and saving
+     * one if it is missing or older than the puzzle file
+     */
+    public static PuzzleIndex open(File puzzles) throws IOException {
+        File sidecar = new File(puzzles.getPath() + ".idx");
+        long[] offsets = load(sidecar, puzzles);
+
+        if (offsets == null) {
+            offsets = build(puzzles);
+            try {
+                save(sidecar, puzzles, offsets);
+            }
+            catch (IOException ex) {
+                // The index still works, it is just built again next time
+            }
+        }
+        return new PuzzleIndex(puzzles, offsets);
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int[] read(int boardNumber) throws IOException {
+        long start = offsets[boardNumber - 1], end = offsets[boardNumber];
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0)
+                throw new IOException("Puzzle file is shorter than its index");
+        }
+
+        int[] values = new int[SolverEngine.CELLS];
+        int count = 0;
+        for (int k = 0; k < bytes.limit() && count < values.length; k++) {
+            byte c = bytes.get(k);
+            if (c == '.')
+                values[count++] = 0;
+            else if (c >= '0' && c <= '9')
+                values[count++] = c - '0';
+        }
+        if (count < values.length)
+            throw new IOException("Puzzle " + boardNumber + " is incomplete");
+        return values;
+    }
+
+    /*
+     * Scans the puzzle file once and returns the offsets of its puzzles.
+     * Follows PuzzleReader: a title line discards an incomplete puzzle, and a
+     * puzzle ends at the end of the line holding its last value
+     */
+    private static long[] build(File puzzles) throws IOException {
+        long[] offsets = new long[64];
+        int count = 0;
+
+        try (InputStream input = new BufferedInputStream(new FileInputStream(puzzles), 1 << 16)) {
+            long position = 0, lineStart = 0, puzzleStart = 0;
+            int values = 0, lineValues = 0;
+            boolean title = false;
+            int c;
+
+            while (true) {
+                c = input.read();
+                if (c == '\n' || c < 0) {
+                    if (title)
+                        values = 0;
+                    else if (lineValues > 0) {
+                        if (values == 0)
+                            puzzleStart = lineStart;
+                        values += lineValues;
+                        if (values >= SolverEngine.CELLS) {
+                            if (count + 2 > offsets.length)
+                                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                            offsets[count++] = puzzleStart;
+                            offsets[count] = position; // End of the last puzzle so far
+                            values = 0;
+                        }
+                    }
+                    if (c < 0)
+                        break;
+
+                    lineStart = position + 1;
+                    lineValues = 0;
+                    title = false;
+                }
+                else if (c == '.' || (c >= '0' && c <= '9'))
+                    lineValues++;
+                else if (!Character.isWhitespace(c))
+                    title = true;
+                position++;
+            }
+        }
+
+        // A puzzle is read up to where the next one starts, which may take in a
+        // title line after its values, and the last one up to the end of its line
+        return Arrays.copyOf(offsets, count + 1);
+    }
+
+    /*
+     * Loads a sidecar index. Returns null if it is missing, unreadable or
+     * was made for a different version of the puzzle file
+     */
+    private static long[] load(File sidecar, File puzzles) {
+        if (!sidecar.exists())
+            return null;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION
+                    || input.readLong() != puzzles.length() || input.readLong() != puzzles.lastModified())
+                return null;
+
+            long[] offsets = new long[input.readInt() + 1];
+            for (int k = 0; k < offsets.length; k++)
+                offsets[k] = input.readLong();
+            return offsets;
+        }
+        catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /*
+     * Saves the index next to the puzzle file. It is written to a temporary
+     * file first so a reader never sees a half written index
+     */
+    private static void save(File sidecar, File puzzles, long[] offsets) throws IOException {
+        File temp = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(puzzles.length());
+            output.writeLong(puzzles.lastModified());
+            output.writeInt(offsets.length - 1);
+            for (long offset : offsets)
+                output.writeLong(offset);
+        }
+        Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
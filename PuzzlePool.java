@@ -0,0 +1,259 @@
+/**
+ * This class keeps a few ready Puzzles of each difficulty so a new game can
+ * start at once. A low priority background thread keeps every queue full.
+ * Boards are taken from the puzzle files first, in a random order without
+ * repeats, and solved once here. Started boards are recorded in a PlayedSet
+ * so they are not repeated in later sessions either. When a difficulty has
+ * no file boards left, or its file is missing, new puzzles are generated and
+ * graded with the DifficultyGrader, so each one is filed under the
+ * difficulty it measures as. If a queue is ever empty, take() makes a
+ * puzzle on the calling thread and, to answer at once, keeps its first
+ * generated puzzle without grading.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeoutException;
+
+public class PuzzlePool {
+    private static final int CAPACITY = 4; // Ready puzzles kept per difficulty
+    private static final int MAX_GRADE_TRIES = 50; // Generated puzzles tried before one is accepted anyway
+    private static final int TAKE_GRADE_TRIES = 1; // take() accepts its first generated puzzle, ungraded
+
+    private final ArrayList<ArrayBlockingQueue<Puzzle>> ready = new ArrayList<>();
+    // Picks the file boards of each difficulty in a random order, created when its file is opened
+    private final BoardSampler[] samplers = new BoardSampler[3];
+    private final PuzzleFile[] files = new PuzzleFile[3]; // Opened puzzle files, null until needed
+    private final PlayedSet[] played = new PlayedSet[3]; // Boards of each file started in any session
+    private final boolean[] fileMissing = new boolean[3];
+    private final Tools producerTools = new Tools();
+    private final Tools takeTools = new Tools(); // Only used by take() on the UI thread
+    private final Object signal = new Object(); // Wakes the producer after a take()
+    private Thread producer;
+
+    PuzzlePool() {
+        for (int i = 0; i < 3; i++) {
+            ready.add(new ArrayBlockingQueue<>(CAPACITY));
+        }
+    }
+
+    /*
+     * Starts the background thread that fills the queues. Only the first
+     * call starts it
+     */
+    public void start() {
+        if (producer != null)
+            return;
+        producer = new Thread(this::produce, "puzzle-pool");
+        producer.setDaemon(true); // Does not keep the application open
+        producer.setPriority(Thread.MIN_PRIORITY); // Never competes with the UI or a solve
+        producer.start();
+    }
+
+    /*
+     * Returns a ready puzzle of the difficulty (1 to 3), making one now if
+     * the queue has run empty
+     */
+    public Puzzle take(int difficulty) {
+        Puzzle puzzle = ready.get(difficulty - 1).poll();
+        if (puzzle == null)
+            puzzle = create(difficulty, takeTools, TAKE_GRADE_TRIES);
+
+        // A file board counts as played once it is started, so it never comes back
+        if (puzzle.getBoardNumber() > 0)
+            markPlayed(difficulty, puzzle.getBoardNumber());
+
+        // Wake the producer to replace the puzzle
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        return puzzle;
+    }
+
+    /*
+     * Body of the producer thread. Tops up the emptiest queue, and waits
+     * for a take() once every queue is full
+     */
+    private void produce() {
+        try {
+            while (true) {
+                int difficulty = 0, fewest = CAPACITY;
+                for (int d = 1; d <= 3; d++) {
+                    if (ready.get(d - 1).size() < fewest) {
+                        fewest = ready.get(d - 1).size();
+                        difficulty = d;
+                    }
+                }
+
+                if (difficulty == 0) {
+                    synchronized (signal) {
+                        // Checked again while holding the lock so a take() cannot be missed
+                        if (isFull())
+                            signal.wait();
+                    }
+                    continue;
+                }
+
+                // offer() only fails if a take() on the UI thread refilled the queue
+                ready.get(difficulty - 1).offer(create(difficulty, producerTools, MAX_GRADE_TRIES));
+            }
+        }
+        catch (InterruptedException ex) {
+            // The application is closing
+        }
+    }
+
+    /*
+     * Returns true if every queue is full
+     */
+    private boolean isFull() {
+        for (ArrayBlockingQueue<Puzzle> queue : ready) {
+            if (queue.remainingCapacity() > 0)
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * The generator, grader and solver one thread makes puzzles with. The
+     * producer and take() each have their own, so a take() never waits for
+     * the producer to finish generating a puzzle
+     */
+    private static class Tools {
+        private final PuzzleGenerator generator = new PuzzleGenerator();
+        private final DifficultyGrader grader = new DifficultyGrader();
+        private final SolverEngine solver = new SolverEngine();
+    }
+
+    /*
+     * Makes a puzzle of the difficulty, from its file while there are unused
+     * boards left and otherwise generated, grading at most maxTries of them
+     */
+    private Puzzle create(int difficulty, Tools tools, int maxTries) {
+        Puzzle puzzle = nextFileBoard(difficulty, tools);
+        return puzzle != null ? puzzle : generate(difficulty, tools, maxTries);
+    }
+
+    /*
+     * Records a started file board. Synchronized like nextFileBoard, which
+     * reads the same played set on the producer thread
+     */
+    private synchronized void markPlayed(int difficulty, int boardNumber) {
+        played[difficulty - 1].markPlayed(boardNumber);
+    }
+
+    /*
+     * Returns an unplayed board of the difficulty from its file, or null if
+     * there are none left. Synchronized because the producer and take()
+     * share the files, samplers and played sets. Reading and solving one
+     * board is quick, so a take() waits little here
+     */
+    private synchronized Puzzle nextFileBoard(int difficulty, Tools tools) {
+        PuzzleFile file = getFile(difficulty);
+        while (file != null && samplers[difficulty - 1].remaining() > 0) {
+            // Gets a random boardNumber of the requested difficulty
+            int boardNumber = samplers[difficulty - 1].next();
+            // Boards started in an earlier session are skipped
+            if (played[difficulty - 1].isPlayed(boardNumber))
+                continue;
+            int[] givens = readFileBoard(file, boardNumber);
+            int[] solution = solve(givens, tools.solver);
+
+            // A board that cannot be read or solved is skipped
+            if (solution != null)
+                return new Puzzle(givens, solution, difficulty, boardNumber);
+        }
+        return null;
+    }
+
+    /*
+     * Generates a new puzzle and grades it until one measures as the
+     * difficulty, for when the file boards are used up or the file is missing.
+     * After maxTries the last one is used anyway so a game never waits
+     * longer. It is still labelled with the requested difficulty, although
+     * the grader measured it as another
+     */
+    private static Puzzle generate(int difficulty, Tools tools, int maxTries) {
+        // The generator's own difficulty, which sets its clue count. Few puzzles with the
+        // medium clue count measure as medium, so medium ones are picked from puzzles
+        // with the fewest clues, which measure as medium more often
+        int generateAs = difficulty == 1 ? 1 : 3;
+        int[] givens = tools.generator.generate(generateAs);
+        for (int tries = 1; tries < maxTries && grade(givens, tools.grader) != difficulty; tries++)
+            givens = tools.generator.generate(generateAs);
+        return new Puzzle(givens, tools.generator.getSolution(), difficulty, 0);
+    }
+
+    /*
+     * Returns the difficulty band the grader measures for a puzzle
+     */
+    private static int grade(int[] givens, DifficultyGrader grader) {
+        grader.grade(givens);
+        return grader.getDifficulty();
+    }
+
+    /*
+     * Returns the solution of a board, or null if it has none
+     */
+    private static int[] solve(int[] givens, SolverEngine solver) {
+        try {
+            if (givens == null || !solver.load(givens) || !solver.solve())
+                return null;
+        }
+        catch (TimeoutException ex) {
+            return null; // No timeout is set
+        }
+        return solver.getGrid().clone();
+    }
+
+    /*
+     * Returns the name of the puzzle file of a difficulty, without the
+     * .bin or .txt extension
+     */
+    private static String getBoardFileName(int difficulty) {
+        switch (difficulty) {
+            case 1:
+                return "easy-puzzles";
+            case 2:
+                return "medium-puzzles";
+            default:
+                return "hard-puzzles";
+        }
+    }
+
+    /*
+     * Returns the puzzle file of a difficulty, opening it the first time.
+     * Returns null if the file is missing or cannot be read
+     */
+    private PuzzleFile getFile(int difficulty) {
+        if (files[difficulty - 1] == null && !fileMissing[difficulty - 1]) {
+            try {
+                files[difficulty - 1] = PuzzleFile.open(getBoardFileName(difficulty));
+                samplers[difficulty - 1] = new BoardSampler(files[difficulty - 1].size());
+                played[difficulty - 1] = PlayedSet.open(new File(getBoardFileName(difficulty) + ".played"),
+                        files[difficulty - 1].size());
+            }
+            catch (IOException ex) {
+                fileMissing[difficulty - 1] = true;
+            }
+        }
+        return files[difficulty - 1];
+    }
+
+    /*
+     * Reads the values of a board from the puzzle file of its difficulty.
+     * Returns null if the board cannot be read
+     */
+    private static int[] readFileBoard(PuzzleFile file, int boardNumber) {
+        try {
+            return file.read(boardNumber);
+        }
+        catch (IOException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * This class reads puzzles one at a time from a text stream. Two layouts are
+ * accepted and can be mixed: the layout of the *-puzzles.txt files, where a
+ * title line such as "Grid 01" is followed by 9 lines of 9 values, and one
+ * puzzle per line with all 81 values written together. Values may be separated
+ * by spaces, and a '.' is read as an empty cell the same as a 0.
+ */
+
+package sudoku;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+public class PuzzleReader implements Closeable {
+    private final BufferedReader reader;
+    private final int[] partial = new int[SolverEngine.CELLS]; // Values read so far for the next puzzle
+    private int partialCount;
+
+    PuzzleReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /*
+     * Returns the values of the next puzzle, or null at the end of the stream.
+     * A title line discards any incomplete puzzle before it
+     */
+    public int[] next() throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (isTitle(line)) {
+                partialCount = 0;
+                continue;
+            }
+
+            for (int k = 0; k < line.length() && partialCount < SolverEngine.CELLS; k++) {
+                char c = line.charAt(k);
+                if (c == '.')
+                    partial[partialCount++] = 0;
+                else if (c >= '0' && c <= '9')
+                    partial[partialCount++] = c - '0';
+            }
+
+            if (partialCount == SolverEngine.CELLS) {
+                partialCount = 0;
+                return partial.clone();
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Skips the next count puzzles. Returns the number actually skipped,
+     * which is less than count if the stream ends first
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && next() != null)
+            skipped++;
+        return skipped;
+    }
+
+    /*
+     * A line with anything other than values and spaces is a title line
+     */
+    private static boolean isTitle(String line) {
+        for (int k = 0; k < line.length(); k++) {
+            char c = line.charAt(k);
+            if (!(c == '.' || Character.isWhitespace(c) || (c >= '0' && c <= '9')))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+     * Helper method that writes the 81 values of a puzzle as one line
+     */
+    public static String toLine(int[] values) {
+        StringBuilder line = new StringBuilder(values.length);
+        for (int value : values)
+            line.append(value);
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * This class is the scalar candidate scanner and the fallback for when the
+ * Vector API is not available. Each puzzle is scanned on its own with one
+ * used-value mask per row, column and box.
+ */
+
+package sudoku;
+
+public class ScalarCandidateScanner extends CandidateScanner {
+    private final int[] unitUsed = new int[SIZE * 3]; // Values used in every row, column and box
+
+    @Override
+    public int scan(int[] grids, int count, int[] candidates, boolean[] valid) {
+        return scan(grids, 0, count, candidates, valid);
+    }
+
+    /*
+     * Scans the puzzles from first up to count. Also used by the vector
+     * scanner for the puzzles left over after its last full block
+     */
+    int scan(int[] grids, int first, int count, int[] candidates, boolean[] valid) {
+        int singles = 0;
+
+        for (int p = first; p < count; p++) {
+            int offset = p * CELLS;
+            boolean puzzleValid = true;
+
+            // Build the used mask of every unit, checking for repeated values
+            for (int u = 0; u < UNITS.length; u++) {
+                int used = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    int value = grids[offset + UNITS[u][k]];
+                    if (value == 0)
+                        continue;
+
+                    int bit = SolverEngine.bit(value);
+                    if ((used & bit) != 0)
+                        puzzleValid = false;
+                    used |= bit;
+                }
+                unitUsed[u] = used;
+            }
+
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (grids[offset + cell] != 0) {
+                    candidates[offset + cell] = 0;
+                    continue;
+                }
+
+                int row = cell / SIZE, column = cell % SIZE, box = (row / 3) * 3 + column / 3;
+                int mask = ~(unitUsed[row] | unitUsed[SIZE + column] | unitUsed[SIZE * 2 + box])
+                        & SolverEngine.ALL_CANDIDATES;
+                candidates[offset + cell] = mask;
+
+                // An empty cell with nothing left means the puzzle cannot be solved
+                if (mask == 0)
+                    puzzleValid = false;
+                else if ((mask & (mask - 1)) == 0)
+                    singles++;
+            }
+            valid[p] = puzzleValid;
+        }
+        return singles;
+    }
+
+    @Override
+    public String getName() {
+        return "Scalar";
+    }
+}
@@ -1,14 +1,18 @@
 /**
  * This method contains everything required to show different
- * scenes on the primaryStage.
+ * scenes on the primaryStage. Each scene is built the first time
+ * it is shown and kept; showing it again only puts the board and
+ * the changing text back on it.
  */
 
 package sudoku;
 
+import javafx.application.Platform;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
@@ -29,6 +33,17 @@ public class SceneController {
     private SolverController solverController;
     private HintController hintController;
     private SudokuPopUp popup;
+    private SudokuPopUp playPopup, solvePopup; // The popups of the play and solver scenes
+    private Scene mainMenu, playMenu, helpMenu, boardMenu;
+    // Solver scenes and their controllers for each box size
+    private final Scene[] solveMenus = new Scene[BoardLayout.MAX_BOX_SIZE + 1];
+    private final SolverController[] solverControllers = new SolverController[BoardLayout.MAX_BOX_SIZE + 1];
+    private MenuButton continueButton; // Only shown when there is a saved game
+    private MenuButton hintButton;
+    private Text boardTitle; // Title of the board being played
+    // Look of every button, loaded from the working directory like the images
+    static final String STYLESHEET = new File("sudoku.css").toURI().toString();
+    private final AutoSaver autoSaver = new AutoSaver(new File("autosave.dat")); // Saves the game in play
 
     SceneController(Stage primaryStage) {
         this.primaryStage = primaryStage;
@@ -41,6 +56,35 @@ public class SceneController {
      * Creates the scene containing the Main Menu
      */
     public Scene getMainMenu() {
+        if (mainMenu == null)
+            mainMenu = createMainMenu();
+
+        // A game left in play can be continued, even after the window was closed
+        boolean saved = autoSaver.hasSave();
+        continueButton.setVisible(saved);
+        continueButton.setManaged(saved);
+
+        return mainMenu;
+    }
+
+    /*
+     * Called once the Main Menu has been drawn. Starts the puzzle pool and
+     * builds the Play Menu in a later pulse, so neither delays the first
+     * frame and the first click on Play does not wait for them either
+     */
+    public void warmUp() {
+        board.startPool();
+        Platform.runLater(() -> {
+            // Building it resets the board, so only while nothing else has used it
+            if (playMenu == null && primaryStage.getScene() == mainMenu)
+                playMenu = createPlayMenu(board.getBoard(0, false));
+        });
+    }
+
+    /*
+     * Builds the Main Menu scene
+     */
+    private Scene createMainMenu() {
         GridPane root = getBackgroundGridPane(10,50);
 
         ImageView logo = createImageView("sudoku-logo.jpg", 400, true);
@@ -49,8 +93,10 @@ public class SceneController {
         MenuButton solver = new MenuButton("Solver", 150, e -> primaryStage.setScene(getSolveMenu()));
         MenuButton help = new MenuButton("Help", 150, e -> primaryStage.setScene(getHelpMenu()));
 
+        continueButton = new MenuButton("Continue", 150, e -> continueGame());
+
         // Creates HBox with the Bottom contents
-        HBox buttons = new HBox(20, player, solver, help);
+        HBox buttons = new HBox(20, continueButton, player, solver, help);
 
         root.add(logo, 0, 0);
         root.add(buttons, 0, 1);
@@ -60,6 +106,7 @@ public class SceneController {
         root.setHalignment(buttons, HPos.CENTER);
 
         Scene mainScene = new Scene(root, 800, 500, Color.BLACK);
+        mainScene.getStylesheets().add(STYLESHEET);
         return mainScene;
     }
 
@@ -67,6 +114,19 @@ public class SceneController {
      * Creates the scene containing the Menu for choosing which Play mode
      */
     private Scene getPlayMenu() {
+        Node boardView = board.getBoard(0, false);
+        if (playMenu == null)
+            playMenu = createPlayMenu(boardView);
+        else
+            showBoard(playMenu, boardView);
+
+        return playMenu;
+    }
+
+    /*
+     * Builds the Play Menu scene around the board
+     */
+    private Scene createPlayMenu(Node boardView) {
         FlowPane root = getBackgroundFlowPane();
 
         // Create all of the game mode selector buttons
@@ -80,10 +140,11 @@ public class SceneController {
         VBox options = new VBox(10, board.getTitleField("Play"), easy, medium, hard, random, back);
         options.setAlignment(Pos.CENTER);
 
-        root.getChildren().add(board.getBoard(0, false));
+        root.getChildren().add(boardView);
         root.getChildren().add(options);
 
         Scene playerScene = new Scene(root, 800, 500, Color.BLACK);
+        playerScene.getStylesheets().add(STYLESHEET);
         return playerScene;
     }
 
@@ -91,21 +152,44 @@ public class SceneController {
      * Creates the scene containing the Solver Scene
      */
     public Scene getSolveMenu() {
+        Node boardView = board.getBoard(0, true);
+        int box = Board.getSolverBoxSize();
+
+        if (solveMenus[box] == null) {
+            // SolverController constructed here because it is only used with this menu
+            solverControllers[box] = new SolverController(board, this);
+            solverController = solverControllers[box];
+            solveMenus[box] = createSolveMenu(boardView);
+        }
+        else {
+            solverController = solverControllers[box];
+            solverController.reset();
+            showBoard(solveMenus[box], boardView);
+        }
+        popup = solvePopup;
+
+        return solveMenus[box];
+    }
+
+    /*
+     * Builds the Solver scene for the current board size
+     */
+    private Scene createSolveMenu(Node boardView) {
         FlowPane root = getBackgroundFlowPane();
 
         // Adds the board to the scene
-        root.getChildren().add(board.getBoard(0, true));
+        root.getChildren().add(boardView);
         root.setMargin(board, new Insets(-12)); // Places the board in the correct spot
-        // SolverController constructed here because it is only used with this menu
-        solverController = new SolverController(board, this);
 
         // Creates VBox with the right side contents
-        VBox options = new VBox(10, board.getTitleField("Solver"), getFillButtons(), getSolveButtons());
+        VBox options = new VBox(10, board.getTitleField("Solver"), solverController.getStatusField(),
+                getFillButtons(), getSolveButtons());
         options.setAlignment(Pos.CENTER);
         root.setMargin(options, new Insets(-12)); // Places the board in the correct spot
         root.getChildren().add(options);
 
         Scene solveScene = new Scene(root, 800, 500, Color.BLACK);
+        solveScene.getStylesheets().add(STYLESHEET);
         // Adds the KeyEvent handlers to the scene rather than the Cells
         solveScene.setOnKeyPressed(e -> board.undoRedoController.handleKeyPressed(e));
         solveScene.setOnKeyReleased(e -> Cell.handleKeyEvent(e, board));
@@ -117,6 +201,15 @@ public class SceneController {
      * Creates the scene containing the Help Scene
      */
     public Scene getHelpMenu() {
+        if (helpMenu == null)
+            helpMenu = createHelpMenu();
+        return helpMenu;
+    }
+
+    /*
+     * Builds the Help scene
+     */
+    private Scene createHelpMenu() {
         // The How-To paragraph is stored in a single String to display
         final String howTo = "Sudoku (Japanese meaning number place) is the name given to a popular puzzle concept. Its origin" +
                 " is unclear, but credit must be attributed to Leonhard Euler who invented a similar, and much more difficult," +
@@ -147,6 +240,7 @@ public class SceneController {
         root.getChildren().add(help);
 
         Scene helpScene = new Scene(root, 800, 500, Color.BLACK);
+        helpScene.getStylesheets().add(STYLESHEET);
 
         return helpScene;
     }
@@ -155,21 +249,45 @@ public class SceneController {
      * Creates the scene containing the Player Board Scene
      */
     public Scene getBoardMenu(int difficulty) {
+        Node boardView = board.getBoard(difficulty, false);
+        // HintController constructed here because it is only used with this menu
+        hintController = new HintController(board);
+
+        if (boardMenu == null)
+            boardMenu = createBoardMenu(boardView);
+        else {
+            showBoard(boardMenu, boardView);
+            boardTitle.setText(board.getTitle());
+        }
+        hintController.installHintTooltip(hintButton);
+        popup = playPopup;
+
+        // Saves the new board now and again after every change
+        board.setOnEdit(this::autosave);
+        autosave();
+
+        return boardMenu;
+    }
+
+    /*
+     * Builds the Player Board scene around the board
+     */
+    private Scene createBoardMenu(Node boardView) {
         FlowPane root = getBackgroundFlowPane();
 
         // Adds the board to the scene
-        root.getChildren().add(board.getBoard(difficulty, false));
+        root.getChildren().add(boardView);
         root.setMargin(board, new Insets(-12)); // Places the board in the correct spot
-        // HintController constructed here because it is only used with this menu
-        hintController = new HintController(board, this);
 
         // Creates VBox with the right side contents
-        VBox options = new VBox(10, board.getTitleField(), getFillButtons(), getPlayButtons());
+        boardTitle = board.getTitleField();
+        VBox options = new VBox(10, boardTitle, getFillButtons(), getPlayButtons());
         options.setAlignment(Pos.CENTER);
         root.getChildren().add(options);
         root.setMargin(options, new Insets(-12)); // Places the board in the correct spot
 
         Scene playScene = new Scene(root, 800, 500, Color.BLACK);
+        playScene.getStylesheets().add(STYLESHEET);
         // Adds the KeyEvent handlers to the scene rather than the Cells
         playScene.setOnKeyPressed(e -> board.undoRedoController.handleKeyPressed(e));
         playScene.setOnKeyReleased(e -> Cell.handleKeyEvent(e, board));
@@ -177,6 +295,16 @@ public class SceneController {
         return playScene;
     }
 
+    /*
+     * Puts the board back on a kept scene. The board can only be in one
+     * scene, so it is taken from the last one it was shown in
+     */
+    private void showBoard(Scene scene, Node boardView) {
+        Pane root = (Pane) scene.getRoot();
+        if (boardView.getParent() != root)
+            root.getChildren().add(0, boardView);
+    }
+
     /*
      * Creates and formats a background GridPane for reuse
      */
@@ -203,24 +331,28 @@ public class SceneController {
     }
 
     /*
-     * Creates the Fill buttons and formats them in a GridPane
+     * Creates the Fill buttons and formats them in a GridPane with one
+     * row for every row of boxes on the board
      */
     private GridPane getFillButtons() {
         GridPane buttons = getBackgroundGridPane(5,5);
+        int box = Board.getLayout().boxSize;
+        // Buttons shrink on the larger boards so all the rows still fit on the screen
+        double size = Math.min(50, 175 / box);
 
         int row = 0, col = 0;
 
         // Creates all the Fill buttons and adds their handlers
-        for (int i = 1; i <= 9; i++) {
-            FillButton button = new FillButton(i);
+        for (int i = 1; i <= Board.getSize(); i++) {
+            FillButton button = new FillButton(i, size);
             button.setOnMousePressed(e -> button.buttonClickBehavior(button));
             button.setOnDragDetected(e -> button.startFullDrag());
             buttons.add(button, col, row);
 
-            // If-else block to increment boxRow and boxColumn properly to check all 8
-            // values in the same box
-            if (col % 3 == 2) {
-                col -= 2;
+            // If-else block to increment row and col properly to lay the
+            // buttons out in the same shape as a box
+            if (col % box == box - 1) {
+                col -= box - 1;
                 row++;
             }
             else
@@ -235,7 +367,7 @@ public class SceneController {
      */
     private GridPane getPlayButtons() {
         GridPane playButtons = getBackgroundGridPane(5,5);
-        popup = new SudokuPopUp(primaryStage, this, true);
+        playPopup = new SudokuPopUp(primaryStage, this, true);
 
         MenuButton undo = new MenuButton("Undo", 55, e -> board.undoRedoController.undo());
         playButtons.add(undo, 0, 0);
@@ -243,11 +375,16 @@ public class SceneController {
         MenuButton redo = new MenuButton("Redo", 55, e -> board.undoRedoController.redo());
         playButtons.add(redo, 1, 0);
 
-        MenuButton hint = new MenuButton("Hint", 55, e -> hintController.handleClick());
-        hintController.installHintTooltip(hint);
-        playButtons.add(hint, 2, 0);
+        hintButton = new MenuButton("Hint", 55, e -> hintController.handleClick());
+        playButtons.add(hintButton, 2, 0);
 
-        MenuButton done = new MenuButton("Done", 175, e -> {if (board.checkComplete(false)) popup.showPopup();});
+        MenuButton done = new MenuButton("Done", 175, e -> {
+            // A finished game has nothing left to continue
+            if (board.checkComplete(false)) {
+                autoSaver.clear();
+                popup.showPopup();
+            }
+        });
         playButtons.add(done, 0, 1, 3, 1);
 
         MenuButton restart = new MenuButton("Restart", 55, e -> primaryStage.setScene(getBoardMenu(-1)));
@@ -267,23 +404,54 @@ public class SceneController {
      */
     private GridPane getSolveButtons() {
         GridPane solveButtons = getBackgroundGridPane(5,5);
-        popup = new SudokuPopUp(primaryStage, this, false);
+        solvePopup = new SudokuPopUp(primaryStage, this, false);
+
+        MenuButton undo = new MenuButton("Undo", 55, e -> board.undoRedoController.undo());
+        MenuButton redo = new MenuButton("Redo",55, e -> board.undoRedoController.redo());
+
+        // Shows the search on the board while it runs
+        MenuButton watch = new MenuButton("Watch", 55, null);
+        watch.setOnMouseClicked(e -> watch.showOn(solverController.toggleWatching()));
+        watch.showOn(solverController.isWatching());
 
-        MenuButton undo = new MenuButton("Undo", 85, e -> board.undoRedoController.undo());
-        solveButtons.add(undo, 0, 0);
+        // Three narrower buttons share the first row so the screen keeps its height
+        HBox history = new HBox(5, undo, redo, watch);
+        solveButtons.add(history, 0, 0, 2, 1);
 
-        MenuButton redo = new MenuButton("Redo",85, e -> board.undoRedoController.redo());
-        solveButtons.add(redo, 1, 0);
+        MenuButton solve = new MenuButton("Solve!", 85, e -> solverController.handleClick());
+        solveButtons.add(solve, 0,1);
 
-        MenuButton solve = new MenuButton("Solve!", 175, e -> solverController.handleClick());
-        solveButtons.add(solve, 0,1, 2, 1);
+        MenuButton cancel = new MenuButton("Cancel", 85, e -> solverController.cancel());
+        solveButtons.add(cancel, 1,1);
 
-        MenuButton restart = new MenuButton("Start Over", 85, e -> primaryStage.setScene(getSolveMenu()));
+        // Leaving the screen stops a running solve
+        MenuButton restart = new MenuButton("Start Over", 85, e -> {
+            solverController.cancel();
+            primaryStage.setScene(getSolveMenu());
+        });
         solveButtons.add(restart, 0,2);
 
-        MenuButton back = new MenuButton("Back", 85, e -> primaryStage.setScene(getMainMenu()));
+        MenuButton back = new MenuButton("Back", 85, e -> {
+            solverController.cancel();
+            primaryStage.setScene(getMainMenu());
+        });
         solveButtons.add(back, 1,2);
 
+        // Cycles through the solver backends and shows the one in use
+        MenuButton backend = new MenuButton(solverController.getBackendName(), 85, null);
+        backend.setOnMouseClicked(e -> backend.setText(solverController.nextBackend()));
+        solveButtons.add(backend, 0, 3);
+
+        // Cycles through the board sizes, which starts over with an empty board of the new size
+        int size = Board.getSize();
+        MenuButton boardSize = new MenuButton(size + "x" + size, 85, e -> {
+            solverController.cancel();
+            int next = Board.getSolverBoxSize() + 1;
+            Board.setSolverBoxSize(next > BoardLayout.MAX_BOX_SIZE ? 3 : next);
+            primaryStage.setScene(getSolveMenu());
+        });
+        solveButtons.add(boardSize, 1, 3);
+
         return solveButtons;
     }
 
@@ -294,29 +462,57 @@ public class SceneController {
         return popup;
     }
 
+    /*
+     * Handler for the Continue button. Rebuilds the saved game's board and
+     * puts back its values, history and hints
+     */
+    private void continueGame() {
+        autoSaver.flush(); // The save on disk must include the latest changes
+        GameSnapshot snapshot = autoSaver.load();
+        if (snapshot == null) {
+            primaryStage.setScene(getMainMenu());
+            return;
+        }
+
+        board.setPuzzle(snapshot.getPuzzle());
+        Scene playScene = getBoardMenu(-1);
+        snapshot.restore(board, hintController);
+        autosave(); // Replaces the save of the unrestored board queued by getBoardMenu
+        primaryStage.setScene(playScene);
+    }
+
+    /*
+     * Hands a snapshot of the game in play to the autosave thread
+     */
+    private void autosave() {
+        if (board.getPuzzle() != null)
+            autoSaver.changed(GameSnapshot.capture(board, hintController));
+    }
+
+    /*
+     * Called when the window closes. Writes any change not saved yet
+     */
+    public void close() {
+        autoSaver.flush();
+    }
+
     /*
      * Handler for the various places a new game can be created from
-     * Shows an error message if applicable
      */
     private void newGameClick(int difficulty) {
         board.setDifficulty(difficulty); // Required for clicking Random
-        // If no boards of the selected difficulty are available, show an error popup
-        if (board.getAttemptedBoardNumbersSize(difficulty) == 0){
-            popup.setPopup(new SudokuPopUp(primaryStage, this, false).getPopup());
-            popup.showPopup();
-        }
-        // Else show the new board
-        else
-            primaryStage.setScene(getBoardMenu(difficulty));
+        primaryStage.setScene(getBoardMenu(difficulty));
     }
 
     /*
      * Reused method to create and format an Image object for displaying
-     * Adds a tooltip if applicable
+     * Adds a tooltip if applicable. The image is read and decoded at the
+     * displayed size on a background thread, and appears once it is ready
      */
     private ImageView createImageView(String fileName, int dimensions, boolean tooltip) {
         // Create the Image object for displaying
-        ImageView logo = new ImageView(new Image(new File(fileName).toURI().toString()));
+        ImageView logo = new ImageView(new Image(new File(fileName).toURI().toString(),
+                dimensions, dimensions, false, true, true));
         logo.setFitHeight(dimensions);
         logo.setFitWidth(dimensions);
 
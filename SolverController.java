@@ -1,45 +1,179 @@
 /**
- * This class controls the handling of the Solver mode. The primary
- * method is the recursive solver. There are also handler methods,
- * a method to output the solution, and other helper methods
+ * This class controls the handling of the Solver mode. The search itself
+ * is done by one of the headless SudokuSolver backends on a copy of the
+ * board values. Solves run on a background thread so the window stays
+ * responsive, and the result is passed back to the board with
+ * Platform.runLater. There are also handler methods, a method to output
+ * the solution, and other helper methods
+ * While watching, an AnimationTimer shows the search's current path on the
+ * board. It asks the solver for one snapshot per frame and draws the last
+ * one that arrived, so the solver never waits on the FX thread and copies
+ * its path at most once per frame however fast it runs.
  */
 
 package sudoku;
 
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
 
 public class SolverController {
     protected Board board;
     protected SceneController controller;
-    protected int[][] boardValues = new int[9][9];
+    protected int[][] boardValues;
+    protected BoardLayout layout; // Size of the board being solved
     protected Cell[][] currentBoard;
+    protected SudokuSolver solver; // Headless backend that does the actual search
     private final long TIMEOUT = 10000;
-    private long startTime;
+    private Text statusField; // Shows whether the last solve was unique
+    // Backends are shared per box size so the Dancing Links matrix is only built once
+    private static final SudokuSolver[][] backends = new SudokuSolver[BoardLayout.MAX_BOX_SIZE + 1][];
+    private static int backendIndex = 0;
+    // Single background thread, so solves from old screens finish before new ones start
+    private static final ExecutorService SOLVE_THREAD = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "solver");
+        thread.setDaemon(true); // Does not keep the application open
+        return thread;
+    });
+    private boolean solving; // Only changed on the FX thread
+    private volatile boolean cancelRequested;
+    private Timeline progress; // Polls the node count while solving
+    private int boardGeneration; // Board.getGeneration() of the board being solved
+    private boolean watching; // Shows the search on the board while solving
+    private AnimationTimer liveView; // Draws the search once per frame while watching
+    private int[] shown; // Value the live view last drew on each Cell
 
     SolverController(Board board, SceneController controller) {
         this.board = board;
         this.controller = controller;
+        layout = Board.getLayout();
+        boardValues = new int[layout.size][layout.size];
+
+        solver = getBackends()[backendIndex];
+        solver.setTimeout(TIMEOUT);
+    }
+
+    /*
+     * Returns the backends for the size of this board, creating them the
+     * first time that size is solved
+     */
+    private SudokuSolver[] getBackends() {
+        if (backends[layout.boxSize] == null) {
+            backends[layout.boxSize] = new SudokuSolver[] {new DancingLinksSolver(layout),
+                    new SolverEngine(layout), new ParallelSolver(layout)};
+        }
+        return backends[layout.boxSize];
     }
 
     /*
-     * Handler method for when the Solve button is clicked
+     * Handler method for when the Backend button is clicked. Switches to the
+     * next solver backend and returns its name for the button text
+     */
+    public String nextBackend() {
+        // The backend cannot change under a running solve
+        if (solving)
+            return getBackendName();
+
+        SudokuSolver[] available = getBackends();
+        backendIndex = (backendIndex + 1) % available.length;
+        solver = available[backendIndex];
+        solver.setTimeout(TIMEOUT);
+        return getBackendName();
+    }
+
+    /*
+     * Returns the name of the backend currently used to solve
+     */
+    public String getBackendName() {
+        return solver.getName();
+    }
+
+    /*
+     * Handler method for when the Solve button is clicked. Locks the board and
+     * starts the solve on the background thread
      */
     public void handleClick() {
+        if (solving)
+            return;
+
         setInitialBoard();
-        if (solveWithTimeout()) {
-            // Display the solved board on the grid
+        // Nothing can be typed into the board while it is being solved
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                currentBoard[i][j].setUpdateable(false);
+            }
+        }
+
+        solving = true;
+        startProgress();
+        if (watching)
+            startLiveView();
+        SOLVE_THREAD.submit(() -> {
+            // Cleared here rather than on the FX thread so an earlier solve still
+            // sees its own cancel, and checked after so this one cannot miss it
+            solver.resetCancel();
+            int solutions = cancelRequested ? -1 : countWithTimeout(2); // Two tells unique from multiple
+            Platform.runLater(() -> finishSolve(solutions));
+        });
+    }
+
+    /*
+     * Handler method for when the Cancel button is clicked. Also called when
+     * leaving the Solver screen. The search stops at its next check
+     */
+    public void cancel() {
+        if (solving) {
+            cancelRequested = true;
+            solver.cancel();
+        }
+    }
+
+    /*
+     * Called on the FX thread when the background solve is done. Shows the
+     * solution or unlocks the board again
+     */
+    private void finishSolve(int solutions) {
+        solving = false;
+        progress.stop();
+        stopLiveView();
+
+        // The board was replaced while solving, so the result is not shown
+        if (boardGeneration != Board.getGeneration()) {
+            cancelRequested = false;
+            return;
+        }
+
+        if (solutions > 0) {
+            // Display the first solution found on the grid
             outputSolvedBoard();
             // Additional check for correct solution
             board.checkSolution(false);
+            setStatus(solutions == 1 ? "Unique solution" : "Multiple solutions");
         }
         else {
             // Set all cells to be updateable to change the board to check
-            for (int i = 0; i < 9; i++) {
-                for (int j = 0; j < 9; j++) {
+            for (int i = 0; i < layout.size; i++) {
+                for (int j = 0; j < layout.size; j++) {
                     currentBoard[i][j].setUpdateable(true);
-                    currentBoard[i][j].setSolverValid(false);
                 }
             }
+
+            // A cancelled solve needs no popup, and may belong to a screen that is gone
+            if (cancelRequested) {
+                setStatus("Cancelled");
+                cancelRequested = false;
+                return;
+            }
+
+            setStatus(solutions == 0 ? "No solution" : "Timed out");
             // Create and show the invalid solution stage/popup
             SudokuPopUp popup = controller.getPopUp();
             popup.setMessageText("Solution not found.");
@@ -52,15 +186,17 @@ public class SolverController {
      * is used to solve the board instead of using the Cell array.
      */
     protected void setInitialBoard() {
+        // The Cells are reused by later boards, so a solve that finishes after
+        // the board has been replaced must leave them alone
+        boardGeneration = Board.getGeneration();
         currentBoard = board.getCurrentBoard();
         int updateValue;
 
         // Populate integer array
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
                 updateValue = currentBoard[i][j].getValue();
                 boardValues[i][j] = updateValue;
-                Board.checkRelatedValues(currentBoard[i][j],i, j);
 
                 if (updateValue > 0)
                     currentBoard[i][j].setUpdateable(false);
@@ -70,12 +206,12 @@ public class SolverController {
 
     /*
      * Output the found solution to the UI board by updating all the values
+     * of the empty Cells
      */
     private void outputSolvedBoard() {
-        Cell[][] currentBoard = board.getCurrentBoard();
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (currentBoard[i][j].getUpdateable()) {
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                if (currentBoard[i][j].getValue() == 0) {
                     currentBoard[i][j].setValue(boardValues[i][j], true);
                     currentBoard[i][j].setUpdateable(false);
                 }
@@ -84,87 +220,171 @@ public class SolverController {
     }
 
     /*
-     * Help method that calls the actual solve() method and catches any
-     * timeout that occurs with an invalid solution
+     * Passes the board to the solver backend and counts its solutions up to
+     * the limit. Returns -1 if a timeout occurs. If a solution is found,
+     * boardValues holds the first one
      */
-    protected boolean solveWithTimeout() {
+    protected int countWithTimeout(int limit) {
+        int solutions;
+        int[] values = new int[layout.cells];
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                values[i * layout.size + j] = boardValues[i][j];
+            }
+        }
+
         try {
-            // Set the start time to check for timeout
-            startTime = System.currentTimeMillis();
-            solve();
-            return true;
+            // Conflicting given values can never be solved
+            if (!solver.load(values))
+                return 0;
+            solutions = solver.countSolutions(limit);
         }
         catch (TimeoutException ex) {
-            return false;
+            return -1;
         }
+        if (solutions == 0)
+            return 0;
+
+        // Copy the solution back to the integer array
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                boardValues[i][j] = solver.getValue(i, j);
+            }
+        }
+        return solutions;
+    }
+
+    /*
+     * Handler method for when the Watch button is clicked. Can be switched
+     * during a solve. Returns true if the search is now watched
+     */
+    public boolean toggleWatching() {
+        watching = !watching;
+        if (solving && watching)
+            startLiveView();
+        else if (solving)
+            stopLiveView();
+        return watching;
+    }
+
+    /*
+     * Returns true if solves are shown on the board while they run
+     */
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /*
+     * Starts drawing the search once per frame. Each frame draws the path
+     * copied since the last frame, if any, and asks for the next one
+     */
+    private void startLiveView() {
+        if (liveView != null)
+            return;
+
+        SudokuSolver running = solver;
+        shown = new int[layout.cells];
+        liveView = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                // The Cells belong to a new board now, so they are left alone
+                if (boardGeneration != Board.getGeneration()) {
+                    stop();
+                    return;
+                }
+                int[] path = running.takeSnapshot();
+                if (path != null)
+                    showPath(path);
+                running.requestSnapshot();
+            }
+        };
+        liveView.start();
     }
 
     /*
-     * Method that solves the sudoku board using the populated integer array
-     */
-    private boolean solve() throws TimeoutException {
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                // Check if it is time to throw a TimeoutException
-                if (System.currentTimeMillis() - startTime > TIMEOUT)
-                    throw new TimeoutException();
-
-                Cell curCell = currentBoard[i][j];
-                // Check if the Cell's value can be changed
-                if (curCell.getUpdateable() && !curCell.getSolverValid()) {
-                    // Every Cell has possible values stored; only try those
-                    for (int k = 0; k < curCell.possible.size(); k++) {
-                        // Update the value of the integer array
-                        boardValues[i][j] = curCell.possible.get(k);
-
-                        // Check if the above value is possible
-                        if (checkRelatedValuesInt(i, j)) {
-                            curCell.setSolverValid(true);
-
-                            // Recursively try the next Cell, or backtrack and try this next one instead
-                            if (solve())
-                                return true;
-                        }
-                    }
-                    // Reset to 0 and invalid if this value is not correct
-                    curCell.setSolverValid(false);
-                    boardValues[i][j] = 0;
-                    return false;
+     * Stops the live view and takes its values off the Cells that are
+     * still empty, ready for the result
+     */
+    private void stopLiveView() {
+        if (liveView == null)
+            return;
+        liveView.stop();
+        liveView = null;
+
+        if (boardGeneration != Board.getGeneration())
+            return;
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                if (currentBoard[i][j].getValue() == 0) {
+                    currentBoard[i][j].setValue(0, true);
+                    currentBoard[i][j].updateBackground(true);
                 }
             }
         }
-        return true;
     }
 
     /*
-     * Same check method as in Board, but applies to this integer array, not
-     * the Board Cell array
+     * Draws a path on the empty Cells. Only the Cells that differ from the
+     * last frame are changed, and a Cell whose value was taken back or
+     * replaced since then is highlighted for one frame to show the backtrack
      */
-    private boolean checkRelatedValuesInt(int i, int j) {
-        int curValue = boardValues[i][j], boxRow = Board.findBoxStartingPoint(i), boxColumn = Board.findBoxStartingPoint(j);
+    private void showPath(int[] path) {
+        for (int i = 0; i < layout.size; i++) {
+            for (int j = 0; j < layout.size; j++) {
+                Cell cell = currentBoard[i][j];
+                int index = i * layout.size + j;
+                // The values of filled Cells are given, not searched
+                if (cell.getValue() != 0)
+                    continue;
 
-        for (int k = 0; k < 9; k++) {
-            // Check each number in the current row
-            if (curValue == boardValues[i][k] && k != j)
-                return false;
+                if (path[index] != shown[index]) {
+                    cell.updateBackground(shown[index] == 0);
+                    cell.setValue(path[index], true);
+                    shown[index] = path[index];
+                }
+                else
+                    cell.updateBackground(true);
+            }
+        }
+    }
 
-            // Check each number in the current column
-            if (curValue == boardValues[k][j] && k != i)
-                return false;
+    /*
+     * Called when the Solver screen is shown again. Stops any solve and
+     * clears the result of the last one
+     */
+    public void reset() {
+        cancel();
+        setStatus("");
+    }
 
-            // Check each number in the current box
-            if (curValue == boardValues[boxRow][boxColumn] && boxRow != i && boxColumn != j)
-                return false;
+    /*
+     * Returns a formatted textbox that shows the result of the last solve
+     */
+    public Text getStatusField() {
+        statusField = new Text("");
+        statusField.setFont(Font.font("Verdana", FontWeight.BOLD, 14));
+        return statusField;
+    }
 
-            // If-else block to increment boxRow and boxColumn properly to check all 8
-            // values in the same box
-            if (boxColumn % 3 == 2) {
-                boxColumn -= 2;
-                boxRow++;
-            } else
-                boxColumn++;
-        }
+    /*
+     * Starts showing the number of values tried. The count is sampled ten
+     * times a second rather than posted by the solver, so the search never
+     * waits on the FX thread
+     */
+    private void startProgress() {
+        SudokuSolver running = solver;
+        progress = new Timeline(new KeyFrame(Duration.millis(100),
+                e -> setStatus("Solving... " + running.getProgress() + " tried")));
+        progress.setCycleCount(Timeline.INDEFINITE);
+        progress.play();
+        setStatus("Solving...");
+    }
 
-        return true;
+    /*
+     * Updates the status textbox if it has been added to the scene
+     */
+    private void setStatus(String status) {
+        if (statusField != null)
+            statusField.setText(status);
     }
 }
@@ -0,0 +1,340 @@
+/**
+ * This class is the constraint propagation solver backend. It works on a flat
+ * int array of values rather than the Cell array used by the GUI, for any board
+ * size in BoardLayout. Used values are stored as bitmasks for every row, column
+ * and box so a candidate check is a single bitwise operation. After every
+ * assignment the naked and hidden singles are filled in, and the search
+ * branches on the empty cell with the fewest candidates. Every assignment is
+ * pushed on a trail so backtracking only has to pop back to a mark. All arrays are allocated once, so a search does
+ * not allocate and does not need the JavaFX toolkit to run.
+ */
+
+package sudoku;
+
+import java.util.concurrent.TimeoutException;
+
+public class SolverEngine extends SudokuSolver {
+    // Sizes of the standard 9x9 board, used by the classes that only handle that size
+    public static final int SIZE = 9;
+    public static final int CELLS = SIZE * SIZE;
+    public static final int ALL_CANDIDATES = (1 << SIZE) - 1; // Bits 0-8 represent values 1-9
+
+    private final int size; // Rows, columns, boxes and values of this engine's board
+    private final int cells;
+    private final int allCandidates;
+    private final int[] rowOf; // Row of each flat index
+    private final int[] columnOf; // Column of each flat index
+    private final int[] boxOf; // Box of each flat index
+    private final int[][] units; // Cells of every row, column and box
+
+    private final int[] grid; // The values being solved, 0 is empty
+    private final int[] solution; // The loaded values, then the first solution
+    private final int[] rowUsed; // Bitmask of values used in each row
+    private final int[] columnUsed; // Bitmask of values used in each column
+    private final int[] boxUsed; // Bitmask of values used in each box
+    private final int[] empty; // Flat indexes of the empty cells, unordered
+    private final int[] emptyPosition; // Index of each cell in empty
+    private int emptyCount;
+    private final int[] trail; // Cells in the order they were assigned
+    private int trailSize;
+    private int solutionCount; // Solutions found by the current count
+    private int limit; // Number of solutions to stop the current count at
+    private boolean loadValid; // False if the loaded values already conflict
+
+    SolverEngine() {
+        this(BoardLayout.STANDARD);
+    }
+
+    /*
+     * The lookup tables come from the shared layout so the search never divides
+     */
+    SolverEngine(BoardLayout layout) {
+        super(layout);
+        size = layout.size;
+        cells = layout.cells;
+        allCandidates = layout.allCandidates;
+        rowOf = layout.rowOf;
+        columnOf = layout.columnOf;
+        boxOf = layout.boxOf;
+        units = layout.units;
+
+        grid = new int[cells];
+        solution = new int[cells];
+        rowUsed = new int[size];
+        columnUsed = new int[size];
+        boxUsed = new int[size];
+        empty = new int[cells];
+        emptyPosition = new int[cells];
+        trail = new int[cells];
+    }
+
+    /*
+     * Copies the passed values into the engine and builds the used masks
+     */
+    @Override
+    public boolean load(int[] values) {
+        emptyCount = 0;
+        trailSize = 0;
+        for (int i = 0; i < size; i++) {
+            rowUsed[i] = 0;
+            columnUsed[i] = 0;
+            boxUsed[i] = 0;
+        }
+
+        boolean valid = true;
+        for (int cell = 0; cell < cells; cell++) {
+            int value = values[cell];
+            grid[cell] = value;
+            solution[cell] = value;
+
+            if (value == 0) {
+                emptyPosition[cell] = emptyCount;
+                empty[emptyCount++] = cell;
+            }
+            // A bit that is already set means the value appears twice in a row, column or box
+            else if ((usedMask(cell) & bit(value)) != 0)
+                valid = false;
+            else
+                place(cell, value);
+        }
+        loadValid = valid;
+        return valid;
+    }
+
+    /*
+     * Counts solutions with propagation and fewest-candidates branching, then
+     * pops the whole trail so the loaded values are restored
+     */
+    @Override
+    public int countSolutions(int limit) throws TimeoutException {
+        startClock();
+        this.limit = limit;
+        solutionCount = 0;
+
+        // Conflicting values have no solutions, so do not search
+        if (!loadValid)
+            return 0;
+
+        try {
+            search();
+        }
+        finally {
+            undoTo(0);
+        }
+        return solutionCount;
+    }
+
+    /*
+     * Recursive search. Propagates first, then tries every candidate of the
+     * most constrained empty cell, popping the trail back after each failure.
+     * Returns true once the limit is reached so the search can stop
+     */
+    private boolean search() throws TimeoutException {
+        if (!propagate())
+            return false;
+        if (emptyCount == 0) {
+            // Only the first solution is kept
+            if (++solutionCount == 1)
+                System.arraycopy(grid, 0, solution, 0, cells);
+            return solutionCount >= limit;
+        }
+
+        int cell = mostConstrainedCell();
+        int candidates = candidates(cell);
+        int mark = trailSize;
+
+        while (candidates != 0) {
+            int lowest = candidates & -candidates; // Isolate the lowest remaining candidate
+            candidates ^= lowest;
+
+            countNode();
+            assign(cell, Integer.numberOfTrailingZeros(lowest) + 1);
+            if (search())
+                return true;
+            undoTo(mark);
+        }
+        return false;
+    }
+
+    /*
+     * Fills every naked single (a cell with one candidate) and hidden single
+     * (a value with one possible cell in a unit) until none are left. Returns
+     * false if a cell or a unit runs out of options
+     */
+    private boolean propagate() {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            // Walk backwards because assign() swaps the cell with the last empty cell
+            for (int i = emptyCount - 1; i >= 0; i--) {
+                int cell = empty[i];
+                int candidates = candidates(cell);
+
+                if (candidates == 0)
+                    return false;
+                if ((candidates & (candidates - 1)) == 0) {
+                    assign(cell, Integer.numberOfTrailingZeros(candidates) + 1);
+                    changed = true;
+                }
+            }
+
+            for (int u = 0; u < units.length; u++) {
+                int[] unit = units[u];
+                int once = 0, twice = 0, used = 0;
+
+                // Collect the values that can go in at least one and at least two cells
+                for (int k = 0; k < size; k++) {
+                    int cell = unit[k];
+                    if (grid[cell] != 0)
+                        used |= bit(grid[cell]);
+                    else {
+                        int candidates = candidates(cell);
+                        twice |= once & candidates;
+                        once |= candidates;
+                    }
+                }
+
+                // A value that is neither used nor possible anywhere in the unit
+                if ((used | once) != allCandidates)
+                    return false;
+
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int lowest = hidden & -hidden;
+                    hidden ^= lowest;
+
+                    if (!assignHidden(unit, lowest))
+                        return false;
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Places a hidden single in the only cell of the unit that can take it.
+     * Returns false if an earlier assignment in this pass already removed it
+     */
+    private boolean assignHidden(int[] unit, int mask) {
+        for (int k = 0; k < size; k++) {
+            int cell = unit[k];
+            if (grid[cell] == 0 && (candidates(cell) & mask) != 0) {
+                assign(cell, Integer.numberOfTrailingZeros(mask) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Returns the empty cell with the fewest candidates. Stops early at two
+     * because propagation has already filled every cell with one
+     */
+    private int mostConstrainedCell() {
+        int best = empty[0], bestCount = size + 1;
+
+        for (int i = 0; i < emptyCount; i++) {
+            int count = Integer.bitCount(candidates(empty[i]));
+            if (count < bestCount) {
+                best = empty[i];
+                bestCount = count;
+                if (count <= 2)
+                    break;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Places a value, removes the cell from the empty list and records it on the trail
+     */
+    private void assign(int cell, int value) {
+        place(cell, value);
+
+        // Swap the cell with the last empty cell so it drops off the end of the list
+        int position = emptyPosition[cell], last = empty[--emptyCount];
+        empty[position] = last;
+        emptyPosition[last] = position;
+        empty[emptyCount] = cell;
+        emptyPosition[cell] = emptyCount;
+
+        trail[trailSize++] = cell;
+    }
+
+    /*
+     * Pops assignments off the trail until it is back to the mark. Cells are
+     * undone in reverse order, so each one is still just past the end of the
+     * empty list and only needs the count increased
+     */
+    private void undoTo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            remove(cell, grid[cell]);
+            emptyCount++;
+        }
+    }
+
+    /*
+     * Sets the value of a cell and marks it used in its row, column and box
+     */
+    private void place(int cell, int value) {
+        int mask = bit(value);
+        grid[cell] = value;
+        rowUsed[rowOf[cell]] |= mask;
+        columnUsed[columnOf[cell]] |= mask;
+        boxUsed[boxOf[cell]] |= mask;
+    }
+
+    /*
+     * Clears the value of a cell and unmarks it in its row, column and box
+     */
+    private void remove(int cell, int value) {
+        int mask = ~bit(value);
+        grid[cell] = 0;
+        rowUsed[rowOf[cell]] &= mask;
+        columnUsed[columnOf[cell]] &= mask;
+        boxUsed[boxOf[cell]] &= mask;
+    }
+
+    /*
+     * Returns the mask of values already used by the peers of a cell
+     */
+    private int usedMask(int cell) {
+        return rowUsed[rowOf[cell]] | columnUsed[columnOf[cell]] | boxUsed[boxOf[cell]];
+    }
+
+    /*
+     * Returns the mask of values that can still be placed in a cell
+     */
+    private int candidates(int cell) {
+        return ~usedMask(cell) & allCandidates;
+    }
+
+    /*
+     * Helper method that converts a value to its bit in a candidate mask
+     */
+    public static int bit(int value) {
+        return 1 << (value - 1);
+    }
+
+    @Override
+    public int[] getGrid() {
+        return solution;
+    }
+
+    /*
+     * The working grid holds the current path, the loaded values included
+     */
+    @Override
+    protected void copyPath(int[] into) {
+        System.arraycopy(grid, 0, into, 0, cells);
+    }
+
+    @Override
+    public String getName() {
+        return "Propagation";
+    }
+}
@@ -7,26 +7,29 @@
 
 package sudoku;
 
+import javafx.css.PseudoClass;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
-import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
 
 public abstract class SudokuButton extends Button {
     public static SudokuButton selected = null; // stores whatever Cell or FillButton is selected for update
-    public final Border DEFAULT_BORDER = new Border(new BorderStroke(Color.BLACK, null,
-            null, null));
-    public final Border SELECTED_BORDER = new Border(new BorderStroke(Color.CYAN, BorderStrokeStyle.SOLID,
-            CornerRadii.EMPTY, BorderStroke.MEDIUM));
+    // The background, border and selected border of every button come from the stylesheet
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
 
-    SudokuButton(String label, double width, Color color) {
+    SudokuButton(String label, double width) {
+        this(label, width, 50); // Height of 50 is shared by all buttons other than Cells
+    }
+
+    /*
+     * Constructor with a height, used by Cells and FillButtons on larger boards
+     */
+    SudokuButton(String label, double width, double height) {
         super(label); // Uses the javafx.Button constructor to create a button with the provided text
         setMinWidth(width); // Width varies depending on the button and is passed with the constructor
-        setMinHeight(50); // Height is shared by all buttons
+        setMinHeight(height);
         setAlignment(Pos.CENTER); // All buttons are centered
-        setBorder(DEFAULT_BORDER); // All buttons share the same initial default border
-        //Buttons pass their background color as a parameter
-        setBackground(new Background(new BackgroundFill(color, null, null)));
+        // All buttons start flat with no border; each subclass adds the class with its color
+        getStyleClass().add("sudoku-button");
     }
 
     /*
@@ -66,10 +69,10 @@ public abstract class SudokuButton extends Button {
     public abstract boolean getUpdateable();
 
     /*
-     * Updates the border of the button. Implmentation shared by all subclasses
+     * Switches the selected look of the button on or off
      */
-    protected void updateBorder(Border border) {
-        setBorder(border);
+    protected void showSelected(boolean selected) {
+        pseudoClassStateChanged(SELECTED, selected);
     }
 
     /*
@@ -83,7 +86,7 @@ public abstract class SudokuButton extends Button {
         if (selected == null && (curButton instanceof FillButton || curButton.getUpdateable())) {
             // Cannot use updateSelected because selected starts as null
             selected = curButton;
-            selected.updateBorder(SELECTED_BORDER);
+            selected.showSelected(true);
         }
         // If cur and selected are the same type, change which one is selected
         else if ((selected instanceof FillButton && curButton instanceof FillButton) ||
@@ -118,7 +121,7 @@ public abstract class SudokuButton extends Button {
 
         // Update to the selected border if selected exists
         if (selected != null)
-            selected.updateBorder(SELECTED_BORDER);
+            selected.showSelected(true);
     }
 }
 
@@ -2,10 +2,8 @@
  * This class represents a Controller to handle popup messages. The popups
  * utilize a second stage with Application Modality, meaning ActionEvents
  * cannot occur outside of the popup, forcing the user to click one of the
- * available buttons. There are three types of popups: congratulations for
- * solving a board, Solution not Found for a solver TimeoutException, and
- * all boards done for clicking a new game difficulty when all 20 boards
- * have been opened in this session.
+ * available buttons. There are two types of popups: congratulations for
+ * solving a board and Solution not Found for a solver TimeoutException.
  */
 
 package sudoku;
@@ -27,7 +25,6 @@ public class SudokuPopUp {
     private Stage primaryStage; // Owner stage
     private Stage popup; // Popup stage
     private BorderPane root;
-    private SudokuPopUp newPopup;
 
 
     /*
@@ -76,6 +73,7 @@ public class SudokuPopUp {
         root.setBottom(buttons);
 
         Scene scene = new Scene(root,400,200, Color.SANDYBROWN);
+        scene.getStylesheets().add(SceneController.STYLESHEET);
 
         // Close the popup if the escape key is clicked
         scene.setOnKeyReleased(e -> {if (e.getCode() == KeyCode.ESCAPE) this.closeScene();});
@@ -91,19 +89,10 @@ public class SudokuPopUp {
         // Button to return to the top main menu
         MenuButton mainMenu = new MenuButton("Main Menu", 100, e -> this.closeScene());
 
-        // Button to get a new game in the same difficulty (if possible)
+        // Button to close the popup and get a new game in the same difficulty
         MenuButton newGame = new MenuButton("New Game", 100, e -> {
-            // If all 20 boards in this difficulty have been touched, a new error popup is created and shown
-            if (Board.getAttemptedBoardNumbersSize(Board.getDifficulty()) == 0) {
-                popup.close();
-                newPopup = new SudokuPopUp(primaryStage, controller, false);
-                newPopup.showPopup();
-            }
-            // Otherwise close the popup and show the new game board
-            else {
-                primaryStage.setScene(controller.getBoardMenu(Board.getDifficulty()));
-                this.popup.close();
-            }
+            primaryStage.setScene(controller.getBoardMenu(Board.getDifficulty()));
+            this.popup.close();
         });
 
         // Button to close the popup and view the game board
@@ -115,25 +104,13 @@ public class SudokuPopUp {
     }
 
     /*
-     * Internal method to set default titles associated with the Play Menu popups
-     * If all boards in the difficulty, the title is "[difficulty] boards done"
+     * Internal method to set default titles associated with the popups
+     * If the solver failed, the title is "Solution not found."
      * Otherwise the board is a valid solution and this title is Congratulations
      */
     private void setMessageText(boolean error) {
-        if (error) {
-            switch (Board.getDifficulty()) {
-                case 1:
-                    messageText = "Easy";
-                    break;
-                case 2:
-                    messageText = "Medium";
-                    break;
-                case 3:
-                    messageText = "Hard";
-                    break;
-            }
-            messageText += " boards done";
-        }
+        if (error)
+            messageText = "Solution not found.";
         else
             messageText = "Congratulations!";
 
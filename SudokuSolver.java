@@ -0,0 +1,211 @@
+/**
+ * This is an abstract class for the headless solver backends. Every backend
+ * is made for one BoardLayout. It loads a flat int array of values, counts
+ * its solutions up to a limit and exposes the first solution found. Solving
+ * is counting with a limit of one.
+ * The timeout and cancel handling is shared by all subclasses so a backend
+ * only has to call countNode() once for every value it tries. Cancelling is
+ * cooperative: another thread sets a flag that the search checks every
+ * CHECK_INTERVAL nodes, together with the clock.
+ * A live view can watch a running search the same way: it asks for a
+ * snapshot, and the search copies its current path at the next check. At
+ * most one copy is made per request, so a search nobody watches only pays
+ * for reading the flag.
+ */
+
+package sudoku;
+
+import java.util.concurrent.TimeoutException;
+
+public abstract class SudokuSolver {
+    protected static final int CHECK_INTERVAL = 1024; // Number of nodes between timeout checks
+    protected final BoardLayout layout; // Size of the boards this backend solves
+    private long timeout; // Milliseconds allowed for a solve, 0 is unlimited
+    private long deadline;
+    private long nodes; // Number of values tried during the current solve
+    private volatile long progress; // Copy of nodes published for other threads
+    private volatile boolean cancelled; // Set by another thread to stop the search
+    private volatile boolean snapshotRequested; // Set by a live view that wants the current path
+    private volatile int[] snapshot; // The last path copied for a live view
+
+    SudokuSolver(BoardLayout layout) {
+        this.layout = layout;
+    }
+
+    /*
+     * Copies the passed values into the solver. Returns false if two of the
+     * given values already conflict, in which case the board cannot be solved
+     */
+    public abstract boolean load(int[] values);
+
+    /*
+     * Counts the solutions of the loaded values, stopping as soon as limit
+     * solutions are found. The loaded values are left unchanged so they can
+     * be counted or solved again without another load
+     */
+    public abstract int countSolutions(int limit) throws TimeoutException;
+
+    /*
+     * Returns the loaded values, or the first solution after a solve or
+     * count that found one
+     */
+    public abstract int[] getGrid();
+
+    /*
+     * Solves the loaded values. Returns true if a solution was found, which
+     * can then be read with getGrid()
+     */
+    public boolean solve() throws TimeoutException {
+        return countSolutions(1) > 0;
+    }
+
+    /*
+     * Checks if the loaded values have exactly one solution. Only searches
+     * far enough to find a second one
+     */
+    public boolean hasUniqueSolution() throws TimeoutException {
+        return countSolutions(2) == 1;
+    }
+
+    /*
+     * Returns the name of the backend shown in Solver mode
+     */
+    public abstract String getName();
+
+    /*
+     * Returns the value at a row and column of the current grid
+     */
+    public int getValue(int row, int column) {
+        return getGrid()[row * layout.size + column];
+    }
+
+    /*
+     * Returns the layout of the boards this backend solves
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /*
+     * Called by subclasses at the start of a solve to reset the node count
+     * and start the clock
+     */
+    protected void startClock() {
+        nodes = 0;
+        progress = 0;
+        snapshot = null; // A path from the last solve must not be shown for this one
+        deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+    }
+
+    /*
+     * Called by subclasses for every value tried. The clock is only read
+     * every CHECK_INTERVAL nodes rather than at every node
+     */
+    protected void countNode() throws TimeoutException {
+        if (++nodes % CHECK_INTERVAL == 0) {
+            progress = nodes;
+            if (snapshotRequested)
+                publishSnapshot(this);
+            if (shouldStop())
+                throw new TimeoutException();
+        }
+    }
+
+    /*
+     * Checked every CHECK_INTERVAL nodes. Stops the search once it has been
+     * cancelled or the deadline has passed. Overridden to stop a search early
+     * for other reasons
+     */
+    protected boolean shouldStop() {
+        return cancelled || System.currentTimeMillis() > deadline;
+    }
+
+    /*
+     * Asks a running search to stop. Safe to call from any thread; the search
+     * stops with a TimeoutException at its next check
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /*
+     * Clears the cancel flag before a new search
+     */
+    public void resetCancel() {
+        cancelled = false;
+    }
+
+    /*
+     * Returns true if the last search was stopped by cancel()
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /*
+     * Returns the number of values tried so far by a running search. Safe to
+     * read from another thread, and updated every CHECK_INTERVAL nodes
+     */
+    public long getProgress() {
+        return progress;
+    }
+
+    /*
+     * Asks a running search to copy its current path at its next check. Safe
+     * to call from any thread
+     */
+    public void requestSnapshot() {
+        snapshotRequested = true;
+    }
+
+    /*
+     * Returns the path copied since the last call, or null if the search
+     * has not reached a check since it was requested
+     */
+    public int[] takeSnapshot() {
+        int[] taken = snapshot;
+        snapshot = null;
+        return taken;
+    }
+
+    /*
+     * Returns true if a live view is waiting for a snapshot
+     */
+    protected boolean isSnapshotRequested() {
+        return snapshotRequested;
+    }
+
+    /*
+     * Copies the current path of searcher, which is this backend or one it
+     * runs, for the live view. Called on the searching thread
+     */
+    protected void publishSnapshot(SudokuSolver searcher) {
+        snapshotRequested = false;
+        int[] copy = new int[layout.cells];
+        searcher.copyPath(copy);
+        snapshot = copy;
+    }
+
+    /*
+     * Fills into with the values the search has assigned so far, 0 where it
+     * has not. Backends whose grid only holds the loaded values and the
+     * solution override this
+     */
+    protected void copyPath(int[] into) {
+        System.arraycopy(getGrid(), 0, into, 0, layout.cells);
+    }
+
+    /*
+     * Returns the number of values tried during the last solve
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /*
+     * Sets the number of milliseconds a solve may run. 0 means no limit
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+}
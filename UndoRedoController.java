@@ -28,6 +28,17 @@ public class UndoRedoController {
         resetRedoStack();
     }
 
+    /*
+     * Empties both stacks. Called when a new board is put on the Cells,
+     * as the Cells are reused
+     */
+    public void clear() {
+        undoActionStack.clear();
+        undoValueStack.clear();
+        lastUndoIndex = -1;
+        resetRedoStack();
+    }
+
     /*
      * When a cell is updated, that cell is added to the undoActionStack
      * and the pre-update value is added to the value stack.
@@ -84,6 +95,63 @@ public class UndoRedoController {
         }
     }
 
+    /*
+     * Returns the undo stack as {cell indexes, values}, oldest first, for
+     * the snapshot of a game. Entries for Cells of earlier boards are left out
+     */
+    public int[][] getUndoHistory(Cell[][] board) {
+        return getHistory(board, undoActionStack, undoValueStack);
+    }
+
+    /*
+     * Returns the redo stack in the same form as getUndoHistory()
+     */
+    public int[][] getRedoHistory(Cell[][] board) {
+        return getHistory(board, redoActionStack, redoValueStack);
+    }
+
+    /*
+     * Helper method that turns a pair of stacks into cell indexes and values
+     */
+    private static int[][] getHistory(Cell[][] board, ArrayList<Cell> actions, ArrayList<Integer> values) {
+        int count = 0;
+        for (Cell cell : actions) {
+            if (board[cell.getRow()][cell.getColumn()] == cell)
+                count++;
+        }
+
+        int[][] history = new int[2][count];
+        count = 0;
+        for (int k = 0; k < actions.size(); k++) {
+            Cell cell = actions.get(k);
+            if (board[cell.getRow()][cell.getColumn()] == cell) {
+                history[0][count] = cell.getRow() * board.length + cell.getColumn();
+                history[1][count++] = values.get(k);
+            }
+        }
+        return history;
+    }
+
+    /*
+     * Replaces both stacks with a saved history of the Cells of a restored board
+     */
+    public void restore(Cell[][] board, int[][] undo, int[][] redo) {
+        undoActionStack = new ArrayList<>();
+        undoValueStack = new ArrayList<>();
+        resetRedoStack();
+
+        for (int k = 0; k < undo[0].length; k++) {
+            undoActionStack.add(board[undo[0][k] / board.length][undo[0][k] % board.length]);
+            undoValueStack.add(undo[1][k]);
+        }
+        for (int k = 0; k < redo[0].length; k++) {
+            redoActionStack.add(board[redo[0][k] / board.length][redo[0][k] % board.length]);
+            redoValueStack.add(redo[1][k]);
+        }
+        lastUndoIndex = undoActionStack.size() - 1;
+        lastRedoIndex = redoActionStack.size() - 1;
+    }
+
     /*
      * Only the control button is registered when pressing because it needs to be held to undo/redo
      */
@@ -0,0 +1,220 @@
+/**
+ * This class keeps running counts of the values on a board so validity does
+ * not have to be checked by scanning. For every row, column and box it
+ * counts how many times each value appears, and for every cell it counts
+ * the units in which its value appears more than once. Setting a cell only
+ * touches its three units, and only scans a unit when a value goes from one
+ * copy to two or back, so an edit costs at most the cell's peers. Whether a
+ * cell is valid, whether the board is complete and the candidates of a cell
+ * are then answered without looking at any other cell.
+ *
+ * The counters also collect the cells a change may have affected: the
+ * changed cell, every cell of a unit that gained or lost a value (their
+ * candidates changed) and every cell that started or stopped being in
+ * conflict. The board redraws only those cells.
+ */
+
+package sudoku;
+
+import java.util.function.IntConsumer;
+
+public class UnitCounters {
+    private final BoardLayout layout;
+    private final int[] values; // Current value of each cell, 0 if empty
+    private final int[][] counts; // Copies of each value in each unit
+    private final int[] present; // Bitset of the values in each unit, bit value set for each
+    private final int[] conflicts; // Units in which each cell's value is repeated
+    private int filled; // Cells with a value
+    private int conflicted; // Cells whose value is repeated in some unit
+    private final boolean[] dirty; // Cells changed since the last drainDirty()
+    private final int[] dirtyCells; // The dirty cells in the order they were marked
+    private int dirtyCount;
+
+    UnitCounters(BoardLayout layout) {
+        this.layout = layout;
+        values = new int[layout.cells];
+        counts = new int[layout.size * 3][layout.size + 1];
+        present = new int[layout.size * 3];
+        conflicts = new int[layout.cells];
+        dirty = new boolean[layout.cells];
+        dirtyCells = new int[layout.cells];
+    }
+
+    /*
+     * Returns the layout of the board being counted
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /*
+     * Records a new value, 0 to empty, for the cell at a flat index
+     */
+    public void set(int cell, int value) {
+        if (values[cell] == value)
+            return;
+
+        markDirty(cell);
+        if (values[cell] != 0)
+            remove(cell);
+        if (value != 0)
+            add(cell, value);
+    }
+
+    /*
+     * Returns true if the cell's value is not repeated in its row, column or
+     * box. Empty cells are always valid
+     */
+    public boolean isValid(int cell) {
+        return conflicts[cell] == 0;
+    }
+
+    /*
+     * Returns true if some value is repeated in a unit
+     */
+    public boolean hasConflicts() {
+        return conflicted > 0;
+    }
+
+    /*
+     * Returns true if every cell is filled and nothing is repeated
+     */
+    public boolean isComplete() {
+        return filled == layout.cells && conflicted == 0;
+    }
+
+    /*
+     * Returns the bitset of values not yet in the cell's row, column or box,
+     * with bit (value - 1) set for each
+     */
+    public int getCandidates(int cell) {
+        int used = present[layout.rowOf[cell]] | present[layout.size + layout.columnOf[cell]]
+                | present[layout.size * 2 + layout.boxOf[cell]];
+        return ~(used >>> 1) & layout.allCandidates;
+    }
+
+    /*
+     * Adds the value of an empty cell to its three units
+     */
+    private void add(int cell, int value) {
+        values[cell] = value;
+        filled++;
+
+        for (int k = 0; k < 3; k++) {
+            int unit = unitOf(cell, k), count = ++counts[unit][value];
+            present[unit] |= 1 << value;
+            if (count == 1)
+                markUnitDirty(unit); // The value is no longer a candidate anywhere in the unit
+
+            if (count >= 2)
+                addConflict(cell);
+            // The copy already there only becomes a conflict with the second one
+            if (count == 2)
+                addConflict(findOther(unit, cell, value));
+        }
+    }
+
+    /*
+     * Takes the value of a cell out of its three units
+     */
+    private void remove(int cell) {
+        int value = values[cell];
+        values[cell] = 0;
+        filled--;
+
+        for (int k = 0; k < 3; k++) {
+            int unit = unitOf(cell, k), count = --counts[unit][value];
+            if (count == 0) {
+                present[unit] &= ~(1 << value);
+                markUnitDirty(unit); // The value is a candidate in the unit again
+            }
+
+            if (count >= 1)
+                removeConflict(cell);
+            // The last copy left is no longer repeated
+            if (count == 1)
+                removeConflict(findOther(unit, cell, value));
+        }
+    }
+
+    /*
+     * Counts one more unit in which a cell's value is repeated
+     */
+    private void addConflict(int cell) {
+        if (conflicts[cell]++ == 0) {
+            conflicted++;
+            markDirty(cell);
+        }
+    }
+
+    /*
+     * Counts one fewer unit in which a cell's value is repeated
+     */
+    private void removeConflict(int cell) {
+        if (--conflicts[cell] == 0) {
+            conflicted--;
+            markDirty(cell);
+        }
+    }
+
+    /*
+     * Passes every cell changed since the last call to update, then forgets them
+     */
+    public void drainDirty(IntConsumer update) {
+        // update only redraws, so no cell is marked while the list is read
+        for (int k = 0; k < dirtyCount; k++) {
+            dirty[dirtyCells[k]] = false;
+            update.accept(dirtyCells[k]);
+        }
+        dirtyCount = 0;
+    }
+
+    /*
+     * Forgets the changed cells, used after the whole board has been redrawn
+     */
+    public void clearDirty() {
+        for (int k = 0; k < dirtyCount; k++)
+            dirty[dirtyCells[k]] = false;
+        dirtyCount = 0;
+    }
+
+    /*
+     * Records that a cell's validity or candidates may have changed
+     */
+    private void markDirty(int cell) {
+        if (!dirty[cell]) {
+            dirty[cell] = true;
+            dirtyCells[dirtyCount++] = cell;
+        }
+    }
+
+    /*
+     * Records that the candidates of every cell in a unit changed
+     */
+    private void markUnitDirty(int unit) {
+        for (int cell : layout.units[unit])
+            markDirty(cell);
+    }
+
+    /*
+     * Returns the unit number of a cell's row (k = 0), column (1) or box (2)
+     */
+    private int unitOf(int cell, int k) {
+        if (k == 0)
+            return layout.rowOf[cell];
+        if (k == 1)
+            return layout.size + layout.columnOf[cell];
+        return layout.size * 2 + layout.boxOf[cell];
+    }
+
+    /*
+     * Finds the cell other than cell in a unit that holds value
+     */
+    private int findOther(int unit, int cell, int value) {
+        for (int other : layout.units[unit]) {
+            if (other != cell && values[other] == value)
+                return other;
+        }
+        throw new IllegalStateException("Unit counts out of step with values");
+    }
+}
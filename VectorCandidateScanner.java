@@ -0,0 +1,95 @@
+/**
+ * This class is the Vector API candidate scanner. Puzzles are processed in
+ * blocks of one puzzle per vector lane, so every step of the scalar scan (the
+ * value bits, the used mask of every unit, repeated values and the candidate
+ * mask of every cell) becomes one vector operation over the whole block.
+ * Cells are gathered from and scattered back to the flat puzzle array, and any
+ * puzzles left after the last full block are scanned by the scalar scanner.
+ *
+ * It needs the incubator module at compile and run time:
+ *     javac --add-modules jdk.incubator.vector ...
+ *     java --add-modules jdk.incubator.vector ...
+ * Without the module CandidateScanner.create() never loads this class.
+ */
+
+package sudoku;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorCandidateScanner extends CandidateScanner {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private final int[] laneOffsets = new int[LANES]; // Offset of each lane's puzzle in the flat array
+    private final int[] bits = new int[CELLS * LANES]; // Value bit of every cell, one row of lanes per cell
+    private final int[] unitUsed = new int[SIZE * 3 * LANES]; // Used mask of every unit, per lane
+    private final ScalarCandidateScanner tail = new ScalarCandidateScanner();
+
+    VectorCandidateScanner() {
+        for (int lane = 0; lane < LANES; lane++)
+            laneOffsets[lane] = lane * CELLS;
+    }
+
+    @Override
+    public int scan(int[] grids, int count, int[] candidates, boolean[] valid) {
+        IntVector zero = IntVector.zero(SPECIES), one = IntVector.broadcast(SPECIES, 1);
+        IntVector all = IntVector.broadcast(SPECIES, SolverEngine.ALL_CANDIDATES);
+        int blocks = count - count % LANES, singles = 0;
+
+        for (int first = 0; first < blocks; first += LANES) {
+            int base = first * CELLS;
+            VectorMask<Integer> invalid = SPECIES.maskAll(false);
+
+            // Gather each cell of every puzzle in the block and convert it to its value bit
+            for (int cell = 0; cell < CELLS; cell++) {
+                IntVector value = IntVector.fromArray(SPECIES, grids, base + cell, laneOffsets, 0);
+                one.lanewise(VectorOperators.LSHL, value.sub(1))
+                        .blend(zero, value.eq(0))
+                        .intoArray(bits, cell * LANES);
+            }
+
+            // A bit seen twice in a unit is a repeated value
+            for (int u = 0; u < UNITS.length; u++) {
+                IntVector used = zero, repeated = zero;
+                for (int k = 0; k < SIZE; k++) {
+                    IntVector bit = IntVector.fromArray(SPECIES, bits, UNITS[u][k] * LANES);
+                    repeated = repeated.or(used.and(bit));
+                    used = used.or(bit);
+                }
+                used.intoArray(unitUsed, u * LANES);
+                invalid = invalid.or(repeated.compare(VectorOperators.NE, 0));
+            }
+
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / SIZE, column = cell % SIZE, box = (row / 3) * 3 + column / 3;
+                VectorMask<Integer> filled = IntVector.fromArray(SPECIES, bits, cell * LANES)
+                        .compare(VectorOperators.NE, 0);
+
+                IntVector mask = IntVector.fromArray(SPECIES, unitUsed, row * LANES)
+                        .or(IntVector.fromArray(SPECIES, unitUsed, (SIZE + column) * LANES))
+                        .or(IntVector.fromArray(SPECIES, unitUsed, (SIZE * 2 + box) * LANES))
+                        .not().and(all)
+                        .blend(zero, filled);
+
+                VectorMask<Integer> none = mask.eq(0);
+                invalid = invalid.or(none.andNot(filled));
+                singles += mask.and(mask.sub(1)).eq(0).andNot(none).trueCount();
+
+                mask.intoArray(candidates, base + cell, laneOffsets, 0);
+            }
+
+            for (int lane = 0; lane < LANES; lane++)
+                valid[first + lane] = !invalid.laneIsSet(lane);
+        }
+
+        return singles + tail.scan(grids, blocks, count, candidates, valid);
+    }
+
+    @Override
+    public String getName() {
+        return "Vector (" + LANES + " lanes)";
+    }
+}
@@ -0,0 +1,36 @@
+#!/bin/sh
+#
+# Builds an AppCDS archive of the classes the application loads up to its
+# first frame, so later launches map them from the archive instead of
+# reading and verifying them again. Then times a launch without and with
+# the archive. Each launch prints its time to first frame and exits.
+#
+# Needs JDK 13 or later and the JavaFX SDK. Run from the directory with the
+# sources, as the images and stylesheet are read from the working directory:
+#
+#     JAVAFX_LIB=/path/to/javafx-sdk/lib ./appcds.sh [classes directory]
+#
+# Afterwards launch with the same options plus -XX:SharedArchiveFile=sudoku.jsa
+# The archive only matches the JDK and classes it was built with, so build it
+# again after either changes.
+
+set -e
+
+if [ -z "$JAVAFX_LIB" ]; then
+    echo "Set JAVAFX_LIB to the lib directory of the JavaFX SDK" >&2
+    exit 1
+fi
+
+CLASSES=${1:-classes}
+ARCHIVE=sudoku.jsa
+MODULES="--module-path $JAVAFX_LIB --add-modules javafx.controls,jdk.incubator.vector"
+
+javac $MODULES -d "$CLASSES" *.java
+
+# Training run: the classes loaded before the exit are written to the archive
+java $MODULES -XX:ArchiveClassesAtExit=$ARCHIVE -Dsudoku.exitAfterFirstFrame=true -cp "$CLASSES" sudoku.Main
+
+echo "Without archive:"
+java $MODULES -Dsudoku.exitAfterFirstFrame=true -cp "$CLASSES" sudoku.Main
+echo "With archive:"
+java $MODULES -XX:SharedArchiveFile=$ARCHIVE -Dsudoku.exitAfterFirstFrame=true -cp "$CLASSES" sudoku.Main
@@ -0,0 +1,88 @@
+/**
+ * This class tests resuming the batch solver from a checkpoint. A run that
+ * goes on from a checkpoint has to leave the same output as one that was
+ * never interrupted, also when the checkpoint was written by a version that
+ * saved only the number of finished puzzles.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+public class BatchSolverTest {
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("batch-solver").toFile();
+        File input = new File(dir, "puzzles.txt");
+        File output = new File(dir, "solutions.txt");
+        File checkpoint = new File(dir, "checkpoint");
+        try {
+            StringBuilder puzzles = new StringBuilder();
+            for (String puzzle : SolverEngineTest.UNIQUE)
+                puzzles.append(puzzle).append('\n');
+            Files.write(input.toPath(), puzzles.toString().getBytes());
+
+            resumesFromOldCheckpoint(input, output, checkpoint);
+            resumesFromFinishedCheckpoint(input, output, checkpoint);
+        }
+        finally {
+            input.delete();
+            output.delete();
+            checkpoint.delete();
+            dir.delete();
+        }
+        System.out.println("BatchSolverTest passed");
+    }
+
+    /*
+     * Two puzzles are done and only their count is in the checkpoint. The
+     * third is appended and the new checkpoint holds the length of the
+     * whole output, not only of the line written now
+     */
+    private static void resumesFromOldCheckpoint(File input, File output, File checkpoint) throws Exception {
+        solve(input, output, null);
+        List<String> full = Files.readAllLines(output.toPath());
+        Check.equal(SolverEngineTest.UNIQUE.length, full.size(), "Lines after a full run");
+
+        Files.write(output.toPath(), (full.get(0) + "\n" + full.get(1) + "\n").getBytes());
+        Files.write(checkpoint.toPath(), "2".getBytes());
+        solve(input, output, checkpoint);
+
+        checkOutput(full, output);
+        String[] saved = new String(Files.readAllBytes(checkpoint.toPath())).trim().split(" ");
+        Check.equal(3, Long.parseLong(saved[0]), "Puzzles in the checkpoint");
+        Check.equal(output.length(), Long.parseLong(saved[1]), "Output length in the checkpoint");
+    }
+
+    /*
+     * Going on from the checkpoint written above skips every puzzle and
+     * keeps the finished output
+     */
+    private static void resumesFromFinishedCheckpoint(File input, File output, File checkpoint) throws Exception {
+        List<String> full = Files.readAllLines(output.toPath());
+        solve(input, output, checkpoint);
+        checkOutput(full, output);
+    }
+
+    private static void solve(File input, File output, File checkpoint) throws IOException, InterruptedException {
+        if (checkpoint == null)
+            BatchSolver.main(new String[] {"-o", output.getPath(), input.getPath()});
+        else
+            BatchSolver.main(new String[] {"-o", output.getPath(), "-c", checkpoint.getPath(), input.getPath()});
+    }
+
+    /*
+     * Compares the puzzle numbers and solutions, leaving out the solve times
+     */
+    private static void checkOutput(List<String> expected, File output) throws IOException {
+        List<String> lines = Files.readAllLines(output.toPath());
+        Check.equal(expected.size(), lines.size(), "Lines after resuming");
+        for (int line = 0; line < lines.size(); line++) {
+            String want = expected.get(line).substring(0, expected.get(line).lastIndexOf('\t'));
+            String got = lines.get(line).substring(0, lines.get(line).lastIndexOf('\t'));
+            Check.isTrue(want.equals(got), "Line " + (line + 1) + " differs after resuming: " + got);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * This class tests that the sampler picks every board number exactly once,
+ * for sizes on and between the powers of 4 its network permutes, and that
+ * the order depends on the seed alone.
+ */
+
+package sudoku;
+
+public class BoardSamplerTest {
+    public static void main(String[] args) {
+        for (int size : new int[] {1, 2, 3, 4, 5, 15, 16, 17, 1000, 4096, 50000})
+            picksEveryBoardOnce(size);
+        sameSeedSameOrder();
+        System.out.println("BoardSamplerTest passed");
+    }
+
+    /*
+     * Every number from 1 to size comes out once, then 0
+     */
+    private static void picksEveryBoardOnce(int size) {
+        BoardSampler sampler = new BoardSampler(size, size);
+        boolean[] seen = new boolean[size + 1];
+        for (int k = 0; k < size; k++) {
+            Check.equal(size - k, sampler.remaining(), "Remaining of " + size);
+            int board = sampler.next();
+            Check.isTrue(board >= 1 && board <= size, "Board " + board + " is out of 1-" + size);
+            Check.isTrue(!seen[board], "Board " + board + " of " + size + " picked twice");
+            seen[board] = true;
+        }
+        Check.equal(0, sampler.remaining(), "Remaining of " + size);
+        Check.equal(0, sampler.next(), "Pick after the last of " + size);
+    }
+
+    /*
+     * Two samplers with one seed agree, and another seed shuffles differently
+     */
+    private static void sameSeedSameOrder() {
+        BoardSampler first = new BoardSampler(1000, 42), second = new BoardSampler(1000, 42);
+        BoardSampler other = new BoardSampler(1000, 43);
+        boolean differs = false;
+        for (int position = 0; position < 1000; position++) {
+            Check.equal(first.boardAt(position), second.boardAt(position), "Position " + position);
+            differs |= first.boardAt(position) != other.boardAt(position);
+        }
+        Check.isTrue(differs, "Seeds 42 and 43 gave the same order");
+    }
+}
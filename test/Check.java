@@ -0,0 +1,65 @@
+/**
+ * This class holds the checks shared by the tests in this directory. The
+ * tests are plain classes with a main method that run-tests.sh compiles
+ * with the sources and runs one after another, so they need nothing but
+ * the JDK and the JavaFX SDK. A failed check throws an AssertionError,
+ * which stops the run with a non-zero exit code.
+ */
+
+package sudoku;
+
+final class Check {
+    private Check() {
+    }
+
+    /*
+     * Fails with the message unless the condition holds
+     */
+    static void isTrue(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+
+    /*
+     * Fails with the message and both numbers unless they are equal
+     */
+    static void equal(long expected, long actual, String message) {
+        if (expected != actual)
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+    }
+
+    /*
+     * Reads a 9x9 board written as 81 characters, row by row, with '0' or
+     * '.' for an empty cell
+     */
+    static int[] parse(String board) {
+        int[] values = new int[board.length()];
+        for (int cell = 0; cell < values.length; cell++) {
+            char c = board.charAt(cell);
+            values[cell] = c == '.' ? 0 : c - '0';
+        }
+        return values;
+    }
+
+    /*
+     * Returns true if grid is a full board that keeps every given value and
+     * has no value twice in a row, column or box
+     */
+    static boolean isSolution(BoardLayout layout, int[] givens, int[] grid) {
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (grid[cell] < 1 || grid[cell] > layout.size)
+                return false;
+            if (givens[cell] != 0 && givens[cell] != grid[cell])
+                return false;
+        }
+
+        for (int[] unit : layout.units) {
+            int seen = 0;
+            for (int cell : unit)
+                seen |= 1 << grid[cell];
+            if (Integer.bitCount(seen) != layout.size)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * This class tests saving a game in play and restoring it on a new board.
+ * The snapshot is captured from real Cells, written, read back and put on
+ * a board built the way Continue builds it. Cells need the JavaFX toolkit,
+ * so the test starts it and runs on the FX thread, and run-tests.sh only
+ * runs it when FX_TESTS is set. GameSnapshotTest covers the save file
+ * without the toolkit.
+ */
+
+package sudoku;
+
+import javafx.application.Platform;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GameRestoreFxTest {
+    public static void main(String[] args) throws Throwable {
+        File save = Files.createTempFile("snapshot", ".dat").toFile();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Platform.startup(() -> {
+            try {
+                restoresSavedGame(save);
+            }
+            catch (Throwable ex) {
+                failure.set(ex);
+            }
+            finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+        save.delete();
+
+        if (failure.get() != null)
+            throw failure.get();
+        System.out.println("GameRestoreFxTest passed");
+    }
+
+    /*
+     * Fills two empty Cells, saves, then restores on a fresh board and
+     * compares every Cell, the hints left and the look of the givens
+     */
+    private static void restoresSavedGame(File save) throws Exception {
+        int[] givens = Check.parse(SolverEngineTest.EASY);
+        SolverEngine engine = new SolverEngine();
+        engine.load(givens);
+        engine.solve();
+        Puzzle puzzle = new Puzzle(givens, engine.getGrid().clone(), 1, 0);
+
+        Board board = new Board();
+        board.setPuzzle(puzzle);
+        board.getBoard(-1, false);
+        HintController hints = new HintController(board);
+        hints.setRemaining(7);
+
+        Cell[][] cells = board.getCurrentBoard();
+        int entered = 0;
+        for (int cell = 0; cell < SolverEngine.CELLS && entered < 2; cell++) {
+            if (givens[cell] == 0) {
+                cells[cell / 9][cell % 9].updateValue(puzzle.getSolutionValue(cell / 9, cell % 9), false);
+                entered++;
+            }
+        }
+        int[] values = new int[SolverEngine.CELLS];
+        for (int cell = 0; cell < SolverEngine.CELLS; cell++)
+            values[cell] = cells[cell / 9][cell % 9].getValue();
+
+        GameSnapshot.capture(board, hints).save(save);
+        GameSnapshot loaded = GameSnapshot.load(save);
+        Check.isTrue(loaded != null, "The saved game could not be read");
+
+        // Continue builds a new board from the saved puzzle before restoring it
+        board.setPuzzle(loaded.getPuzzle());
+        board.getBoard(-1, false);
+        hints = new HintController(board);
+        loaded.restore(board, hints);
+
+        cells = board.getCurrentBoard();
+        Check.equal(7, hints.getRemaining(), "Hints left");
+        for (int cell = 0; cell < SolverEngine.CELLS; cell++) {
+            Cell restored = cells[cell / 9][cell % 9];
+            Check.equal(values[cell], restored.getValue(), "Value of cell " + cell);
+            Check.isTrue(restored.getUpdateable() == (givens[cell] == 0), "Updateable flag of cell " + cell);
+            // Givens are drawn black, and the player's values green
+            Check.isTrue(restored.isGiven() == (givens[cell] != 0), "Given look of cell " + cell);
+        }
+    }
+}
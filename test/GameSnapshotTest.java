@@ -0,0 +1,104 @@
+/**
+ * This class tests the save file of a game in play. A snapshot is written
+ * and read back, and everything Continue restores has to come back the
+ * same: the puzzle, the values and updateable flags, the undo and redo
+ * history and the hints left. Only the file format is tested here, so no
+ * Cells and no JavaFX toolkit are needed; GameRestoreFxTest puts a loaded
+ * snapshot back on a board.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class GameSnapshotTest {
+    public static void main(String[] args) throws Exception {
+        File save = Files.createTempFile("snapshot", ".dat").toFile();
+        try {
+            readsBackWhatWasSaved(save);
+            readsBackEmptyHistory(save);
+            rejectsOtherFiles(save);
+        }
+        finally {
+            save.delete();
+        }
+        System.out.println("GameSnapshotTest passed");
+    }
+
+    /*
+     * A game part way through, with some values entered, some undone and
+     * most hints used
+     */
+    private static void readsBackWhatWasSaved(File save) throws Exception {
+        int[] givens = Check.parse(SolverEngineTest.EASY);
+        int[] solution = solve(givens);
+        int[] values = givens.clone();
+        boolean[] updateable = new boolean[SolverEngine.CELLS];
+        int entered = 0;
+        for (int cell = 0; cell < SolverEngine.CELLS; cell++) {
+            updateable[cell] = givens[cell] == 0;
+            // Every third empty cell is filled in
+            if (givens[cell] == 0 && entered++ % 3 == 0)
+                values[cell] = solution[cell];
+        }
+        int[][] undo = {{2, 4, 80}, {0, 0, 7}};
+        int[][] redo = {{5}, {9}};
+
+        new GameSnapshot(2, 1234567, 4, givens, solution, values, updateable, undo, redo).save(save);
+        GameSnapshot loaded = GameSnapshot.load(save);
+        Check.isTrue(loaded != null, "The saved game could not be read");
+
+        Puzzle puzzle = loaded.getPuzzle();
+        Check.equal(2, puzzle.getDifficulty(), "Difficulty");
+        Check.equal(1234567, puzzle.getBoardNumber(), "Board number");
+        for (int cell = 0; cell < SolverEngine.CELLS; cell++) {
+            Check.equal(givens[cell], puzzle.getValue(cell / 9, cell % 9), "Given of cell " + cell);
+            Check.equal(solution[cell], puzzle.getSolutionValue(cell / 9, cell % 9), "Solution of cell " + cell);
+        }
+        Check.isTrue(Arrays.equals(values, loaded.getValues()), "Values differ after loading");
+        Check.isTrue(Arrays.equals(updateable, loaded.getUpdateable()), "Updateable flags differ after loading");
+        Check.isTrue(Arrays.deepEquals(undo, loaded.getUndo()), "Undo history differs after loading");
+        Check.isTrue(Arrays.deepEquals(redo, loaded.getRedo()), "Redo history differs after loading");
+        Check.equal(4, loaded.getHintsRemaining(), "Hints left");
+    }
+
+    /*
+     * A new game has nothing to undo or redo
+     */
+    private static void readsBackEmptyHistory(File save) throws Exception {
+        int[] givens = Check.parse(SolverEngineTest.HARD);
+        boolean[] updateable = new boolean[SolverEngine.CELLS];
+        int[][] none = {{}, {}};
+
+        new GameSnapshot(3, 0, 3, givens, solve(givens), givens.clone(), updateable, none, none).save(save);
+        GameSnapshot loaded = GameSnapshot.load(save);
+        Check.isTrue(loaded != null, "The saved game could not be read");
+        Check.equal(0, loaded.getUndo()[0].length, "Undo steps");
+        Check.equal(0, loaded.getRedo()[0].length, "Redo steps");
+        Check.equal(0, loaded.getPuzzle().getBoardNumber(), "Board number of a generated puzzle");
+    }
+
+    /*
+     * A missing file, a file that is not a save and a cut off save all load as null
+     */
+    private static void rejectsOtherFiles(File save) throws IOException {
+        byte[] whole = Files.readAllBytes(save.toPath());
+        Files.write(save.toPath(), Arrays.copyOf(whole, whole.length - 1));
+        Check.isTrue(GameSnapshot.load(save) == null, "A cut off save was loaded");
+
+        Files.write(save.toPath(), SolverEngineTest.EASY.getBytes());
+        Check.isTrue(GameSnapshot.load(save) == null, "A puzzle file was loaded as a save");
+
+        save.delete();
+        Check.isTrue(GameSnapshot.load(save) == null, "A missing save was loaded");
+    }
+
+    private static int[] solve(int[] givens) throws Exception {
+        SolverEngine engine = new SolverEngine();
+        Check.isTrue(engine.load(givens) && engine.solve(), "Test puzzle not solved");
+        return engine.getGrid().clone();
+    }
+}
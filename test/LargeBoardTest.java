@@ -0,0 +1,59 @@
+/**
+ * This class tests every solver backend on the 4x4, 16x16 and 25x25
+ * boards of the Solver screen. The puzzles are made from a solved empty
+ * board with cells taken away, so they always have a solution.
+ */
+
+package sudoku;
+
+public class LargeBoardTest {
+    public static void main(String[] args) throws Exception {
+        for (int box = BoardLayout.MIN_BOX_SIZE; box <= BoardLayout.MAX_BOX_SIZE; box++) {
+            if (box == 3)
+                continue; // The other tests cover the standard board
+            BoardLayout layout = BoardLayout.of(box);
+            for (SudokuSolver solver : backends(layout))
+                solvesEmptyAndPartialBoards(layout, solver);
+            rejectsConflictingGivens(layout);
+        }
+        System.out.println("LargeBoardTest passed");
+    }
+
+    /*
+     * All backends of one layout
+     */
+    private static SudokuSolver[] backends(BoardLayout layout) {
+        return new SudokuSolver[] {new SolverEngine(layout), new DancingLinksSolver(layout), new ParallelSolver(layout)};
+    }
+
+    /*
+     * The empty board is solved, then solved again with two thirds of its
+     * solution as the givens. Fewer givens can leave a 25x25 board that
+     * takes some backends minutes
+     */
+    private static void solvesEmptyAndPartialBoards(BoardLayout layout, SudokuSolver solver) throws Exception {
+        String name = solver.getName() + " " + layout.size + "x" + layout.size;
+        int[] empty = new int[layout.cells];
+        Check.isTrue(solver.load(empty) && solver.solve(), name + " did not solve the empty board");
+        Check.isTrue(Check.isSolution(layout, empty, solver.getGrid()), name + " solved the empty board wrong");
+
+        int[] givens = solver.getGrid().clone();
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (cell % 3 == 0)
+                givens[cell] = 0;
+        }
+        Check.isTrue(solver.load(givens) && solver.solve(), name + " did not solve the partial board");
+        Check.isTrue(Check.isSolution(layout, givens, solver.getGrid()), name + " solved the partial board wrong");
+    }
+
+    /*
+     * The largest value twice in the first row is caught by every backend
+     */
+    private static void rejectsConflictingGivens(BoardLayout layout) {
+        int[] givens = new int[layout.cells];
+        givens[0] = layout.size;
+        givens[layout.size - 1] = layout.size;
+        for (SudokuSolver solver : backends(layout))
+            Check.isTrue(!solver.load(givens), solver.getName() + " accepted conflicting givens");
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * This class tests the parallel backend against the propagation backend.
+ * The subtrees finish in any order, so only the answers are compared: the
+ * same solution for a unique puzzle and the same count below the limit.
+ */
+
+package sudoku;
+
+import java.util.Arrays;
+
+public class ParallelSolverTest {
+    public static void main(String[] args) throws Exception {
+        agreesOnUniquePuzzles();
+        agreesOnCounts();
+        stopsAtTheLimit();
+        System.out.println("ParallelSolverTest passed");
+    }
+
+    /*
+     * A unique puzzle has one solution, whichever subtree finds it
+     */
+    private static void agreesOnUniquePuzzles() throws Exception {
+        SudokuSolver parallel = new ParallelSolver(), engine = new SolverEngine();
+        for (String puzzle : SolverEngineTest.UNIQUE) {
+            int[] givens = Check.parse(puzzle);
+            parallel.load(givens);
+            engine.load(givens);
+            Check.equal(1, parallel.countSolutions(2), "Parallel count of " + puzzle);
+            engine.solve();
+            Check.isTrue(Arrays.equals(engine.getGrid(), parallel.getGrid()), "Backends disagree: " + puzzle);
+        }
+    }
+
+    /*
+     * The counts of every subtree add up to the sequential count
+     */
+    private static void agreesOnCounts() throws Exception {
+        SudokuSolver parallel = new ParallelSolver(), engine = new SolverEngine();
+        int[] givens = Check.parse(SolverEngineTest.EASY);
+        for (int cell = 1; cell < 18; cell++)
+            givens[cell] = 0;
+
+        parallel.load(givens);
+        engine.load(givens);
+        int counted = engine.countSolutions(10000);
+        Check.equal(counted, parallel.countSolutions(10000), "Parallel count");
+        Check.isTrue(Check.isSolution(BoardLayout.STANDARD, givens, parallel.getGrid()), "Parallel solution is wrong");
+    }
+
+    /*
+     * The subtrees stop together once the limit is reached between them
+     */
+    private static void stopsAtTheLimit() throws Exception {
+        SudokuSolver parallel = new ParallelSolver();
+        parallel.load(new int[SolverEngine.CELLS]);
+        Check.equal(2, parallel.countSolutions(2), "Parallel count of the empty board");
+        Check.equal(100, parallel.countSolutions(100), "Parallel count of the empty board");
+        Check.isTrue(!parallel.hasUniqueSolution(), "Parallel called the empty board unique");
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * This class tests the binary puzzle corpus by converting a text file with
+ * the command line converter and reading every puzzle back. The packing
+ * has to give back each value and the graded band of every puzzle.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class PuzzleCorpusTest {
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("puzzle-corpus").toFile();
+        File text = new File(dir, "puzzles.txt"), corpus = new File(dir, "puzzles.bin");
+        try {
+            String[] puzzles = SolverEngineTest.UNIQUE;
+            Files.write(text.toPath(), String.join("\n", puzzles).getBytes());
+            PuzzleCorpus.main(new String[] {"-d", "2", "-g", corpus.getPath(), text.getPath()});
+
+            Check.equal(16 + puzzles.length * PuzzleCorpus.RECORD, corpus.length(), "Corpus length");
+            readsBackEveryPuzzle(corpus, puzzles);
+            rejectsOtherFiles(text);
+        }
+        finally {
+            text.delete();
+            corpus.delete();
+            dir.delete();
+        }
+        System.out.println("PuzzleCorpusTest passed");
+    }
+
+    /*
+     * Every value, the corpus difficulty and the band of every puzzle come back
+     */
+    private static void readsBackEveryPuzzle(File corpus, String[] puzzles) throws IOException {
+        DifficultyGrader grader = new DifficultyGrader();
+        try (PuzzleCorpus file = PuzzleCorpus.open(corpus)) {
+            Check.equal(puzzles.length, file.size(), "Puzzles in the corpus");
+            Check.equal(2, file.getDifficulty(), "Corpus difficulty");
+
+            for (int boardNumber = 1; boardNumber <= puzzles.length; boardNumber++) {
+                int[] expected = Check.parse(puzzles[boardNumber - 1]);
+                Check.isTrue(Arrays.equals(expected, file.read(boardNumber)), "Puzzle " + boardNumber + " differs");
+
+                grader.grade(expected);
+                Check.equal(grader.getDifficulty(), file.getDifficulty(boardNumber), "Band of puzzle " + boardNumber);
+            }
+
+            try {
+                file.read(puzzles.length + 1);
+                throw new AssertionError("Read a puzzle past the end");
+            }
+            catch (IndexOutOfBoundsException ex) {
+                // Expected
+            }
+        }
+    }
+
+    /*
+     * A text file is not taken for a corpus
+     */
+    private static void rejectsOtherFiles(File text) {
+        try {
+            PuzzleCorpus.open(text);
+            throw new AssertionError("Opened a text file as a corpus");
+        }
+        catch (IOException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * This class tests the offset index of text puzzle files. Every puzzle read
+ * through the index has to match the same puzzle streamed by PuzzleReader,
+ * with the index built from the file or loaded from its sidecar.
+ */
+
+package sudoku;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class PuzzleIndexTest {
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("puzzle-index").toFile();
+        File puzzles = new File(dir, "puzzles.txt");
+        File sidecar = new File(dir, "puzzles.txt.idx");
+        try {
+            Files.write(puzzles.toPath(), mixedFile().getBytes());
+            Check.equal(4, readsLikePuzzleReader(puzzles), "Puzzles in the file");
+            Check.isTrue(sidecar.exists(), "No sidecar index was saved");
+            Check.equal(4, readsLikePuzzleReader(puzzles), "Puzzles in the sidecar");
+
+            // A longer file no longer matches the sidecar, so it is indexed again
+            Files.write(puzzles.toPath(), (mixedFile() + SolverEngineTest.HARD + "\n").getBytes());
+            Check.equal(5, readsLikePuzzleReader(puzzles), "Puzzles in the longer file");
+        }
+        finally {
+            puzzles.delete();
+            sidecar.delete();
+            dir.delete();
+        }
+        System.out.println("PuzzleIndexTest passed");
+    }
+
+    /*
+     * One line puzzles, with dots and zeros, and Project Euler grids with a
+     * title line above nine lines of values
+     */
+    private static String mixedFile() {
+        StringBuilder file = new StringBuilder();
+        file.append(SolverEngineTest.HARD).append('\n');
+        file.append("Grid 01\n");
+        for (int row = 0; row < 9; row++)
+            file.append(SolverEngineTest.EASY, row * 9, row * 9 + 9).append('\n');
+        file.append(SolverEngineTest.HARDER).append("\r\n");
+        file.append("Grid 02\n");
+        for (int row = 0; row < 9; row++)
+            file.append(SolverEngineTest.HARD, row * 9, row * 9 + 9).append('\n');
+        return file.toString();
+    }
+
+    /*
+     * Opens the index and compares every puzzle, in a shuffled order, with
+     * the puzzles PuzzleReader streams from the same file. Returns the
+     * number of puzzles
+     */
+    private static int readsLikePuzzleReader(File puzzles) throws IOException {
+        ArrayList<int[]> expected = new ArrayList<>();
+        try (PuzzleReader reader = new PuzzleReader(new FileReader(puzzles))) {
+            int[] puzzle;
+            while ((puzzle = reader.next()) != null)
+                expected.add(puzzle);
+        }
+
+        try (PuzzleIndex index = PuzzleIndex.open(puzzles)) {
+            Check.equal(expected.size(), index.size(), "Puzzles indexed");
+            for (int k = 0; k < expected.size(); k++) {
+                int boardNumber = expected.size() - k; // Last to first, so each read seeks
+                Check.isTrue(Arrays.equals(expected.get(boardNumber - 1), index.read(boardNumber)),
+                        "Puzzle " + boardNumber + " differs from PuzzleReader");
+            }
+        }
+        return expected.size();
+    }
+}
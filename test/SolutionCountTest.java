@@ -0,0 +1,83 @@
+/**
+ * This class tests counting solutions with a limit on the propagation and
+ * Dancing Links backends. A count stops at the limit, so a board with many
+ * solutions counts exactly the limit, and the loaded values are left as
+ * they were so the same board can be counted again.
+ */
+
+package sudoku;
+
+public class SolutionCountTest {
+    private static final int LIMIT = 100;
+
+    public static void main(String[] args) throws Exception {
+        for (SudokuSolver solver : new SudokuSolver[] {new SolverEngine(), new DancingLinksSolver()}) {
+            countsUniquePuzzles(solver);
+            stopsAtTheLimit(solver);
+            countsAgainWithoutReload(solver);
+            countsNoSolution(solver);
+        }
+        countsAgree();
+        System.out.println("SolutionCountTest passed");
+    }
+
+    /*
+     * A puzzle with one solution counts 1, even with room for more
+     */
+    private static void countsUniquePuzzles(SudokuSolver solver) throws Exception {
+        for (String puzzle : SolverEngineTest.UNIQUE) {
+            solver.load(Check.parse(puzzle));
+            Check.isTrue(solver.hasUniqueSolution(), solver.getName() + " found a second solution: " + puzzle);
+            Check.equal(1, solver.countSolutions(LIMIT), solver.getName() + " count of " + puzzle);
+        }
+    }
+
+    /*
+     * An empty board has far more solutions than the limit
+     */
+    private static void stopsAtTheLimit(SudokuSolver solver) throws Exception {
+        solver.load(new int[SolverEngine.CELLS]);
+        Check.equal(LIMIT, solver.countSolutions(LIMIT), solver.getName() + " count of the empty board");
+        Check.equal(2, solver.countSolutions(2), solver.getName() + " count of the empty board");
+        Check.isTrue(!solver.hasUniqueSolution(), solver.getName() + " called the empty board unique");
+    }
+
+    /*
+     * The first solution found can be read after a count, and counting the
+     * same board again gives the same answer
+     */
+    private static void countsAgainWithoutReload(SudokuSolver solver) throws Exception {
+        int[] givens = Check.parse(SolverEngineTest.HARD);
+        solver.load(givens);
+        Check.equal(1, solver.countSolutions(2), solver.getName() + " first count");
+        Check.isTrue(Check.isSolution(BoardLayout.STANDARD, givens, solver.getGrid()),
+                solver.getName() + " kept a wrong solution");
+        Check.equal(1, solver.countSolutions(2), solver.getName() + " second count");
+    }
+
+    /*
+     * Conflicting givens have no solutions
+     */
+    private static void countsNoSolution(SudokuSolver solver) throws Exception {
+        solver.load(Check.parse("55" + SolverEngineTest.EASY.substring(2)));
+        Check.equal(0, solver.countSolutions(LIMIT), solver.getName() + " count of conflicting givens");
+    }
+
+    /*
+     * With givens taken away the backends still count the same number of
+     * solutions, below the limit
+     */
+    private static void countsAgree() throws Exception {
+        SudokuSolver engine = new SolverEngine(), links = new DancingLinksSolver();
+        int[] givens = Check.parse(SolverEngineTest.EASY);
+        // Empties the first row but one cell, and the second row
+        for (int cell = 1; cell < 18; cell++)
+            givens[cell] = 0;
+
+        engine.load(givens);
+        links.load(givens);
+        int counted = engine.countSolutions(10000);
+        Check.isTrue(counted > 1 && counted < 10000, "Expected several solutions, counted " + counted);
+        Check.equal(counted, links.countSolutions(10000), "Dancing Links count");
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * This class tests the constraint propagation backend on its own and
+ * against the Dancing Links backend. Every puzzle here has exactly one
+ * solution, so two backends that solve it correctly return the same grid.
+ */
+
+package sudoku;
+
+import java.util.Arrays;
+
+public class SolverEngineTest {
+    // Project Euler's first grid, which singles alone solve
+    static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    // Puzzles that need the search to branch
+    static final String HARD = "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+    static final String HARDER = "000000012000000003002300400001800005060070800000009000008500000900040500470006000";
+    static final String[] UNIQUE = {EASY, HARD, HARDER};
+
+    public static void main(String[] args) throws Exception {
+        solvesUniquePuzzles();
+        agreesWithDancingLinks();
+        rejectsConflictingGivens();
+        findsNoSolutionForDeadEnd();
+        solvesAgainAfterReload();
+        System.out.println("SolverEngineTest passed");
+    }
+
+    /*
+     * Every solution is full, keeps the givens and repeats nothing
+     */
+    private static void solvesUniquePuzzles() throws Exception {
+        SolverEngine engine = new SolverEngine();
+        for (String puzzle : UNIQUE) {
+            int[] givens = Check.parse(puzzle);
+            Check.isTrue(engine.load(givens), "Valid givens rejected: " + puzzle);
+            Check.isTrue(engine.solve(), "No solution found: " + puzzle);
+            Check.isTrue(Check.isSolution(BoardLayout.STANDARD, givens, engine.getGrid()), "Wrong solution: " + puzzle);
+        }
+    }
+
+    /*
+     * Both backends find the one solution of every puzzle
+     */
+    private static void agreesWithDancingLinks() throws Exception {
+        SolverEngine engine = new SolverEngine();
+        DancingLinksSolver links = new DancingLinksSolver();
+        for (String puzzle : UNIQUE) {
+            int[] givens = Check.parse(puzzle);
+            engine.load(givens);
+            links.load(givens);
+            Check.isTrue(engine.solve() && links.solve(), "A backend found no solution: " + puzzle);
+            Check.isTrue(Arrays.equals(engine.getGrid(), links.getGrid()), "Backends disagree: " + puzzle);
+        }
+    }
+
+    /*
+     * Two 5s in the first row can never be solved
+     */
+    private static void rejectsConflictingGivens() throws Exception {
+        int[] givens = Check.parse("55" + EASY.substring(2));
+        SolverEngine engine = new SolverEngine();
+        Check.isTrue(!engine.load(givens), "Conflicting givens accepted");
+        Check.isTrue(!engine.solve(), "Conflicting givens solved");
+    }
+
+    /*
+     * The givens do not conflict, but the top left cell has no value left:
+     * its row holds 1-8 and its column holds 9
+     */
+    private static void findsNoSolutionForDeadEnd() throws Exception {
+        int[] givens = new int[SolverEngine.CELLS];
+        for (int column = 1; column < 9; column++)
+            givens[column] = column;
+        givens[9 * 4] = 9;
+
+        SolverEngine engine = new SolverEngine();
+        Check.isTrue(engine.load(givens), "Valid givens rejected");
+        Check.isTrue(!engine.solve(), "Dead end solved");
+    }
+
+    /*
+     * A solve leaves the engine ready for the next load
+     */
+    private static void solvesAgainAfterReload() throws Exception {
+        SolverEngine engine = new SolverEngine();
+        int[] hard = Check.parse(HARD), easy = Check.parse(EASY);
+        engine.load(hard);
+        engine.solve();
+        engine.load(easy);
+        Check.isTrue(engine.solve(), "Second puzzle not solved");
+        Check.isTrue(Check.isSolution(BoardLayout.STANDARD, easy, engine.getGrid()), "Second solution is wrong");
+    }
+}
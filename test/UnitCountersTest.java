@@ -0,0 +1,105 @@
+/**
+ * This class tests the running unit counts against answers worked out by
+ * scanning the whole board. Random edits, conflicts included, are applied
+ * one at a time and every answer is compared after each of them.
+ */
+
+package sudoku;
+
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+public class UnitCountersTest {
+    private static final int EDITS = 3000;
+
+    public static void main(String[] args) throws TimeoutException {
+        for (int box : new int[] {2, 3, 4})
+            matchesFullScans(BoardLayout.of(box), new Random(box));
+        completesWithSolution();
+        System.out.println("UnitCountersTest passed");
+    }
+
+    /*
+     * Sets random cells to random values or empties them, checking every
+     * cell after each edit. A cell whose value changed is always reported
+     * as dirty, and the candidates are only compared on empty cells
+     */
+    private static void matchesFullScans(BoardLayout layout, Random random) {
+        UnitCounters counters = new UnitCounters(layout);
+        int[] values = new int[layout.cells];
+
+        for (int edit = 0; edit < EDITS; edit++) {
+            int cell = random.nextInt(layout.cells);
+            int value = random.nextInt(3) == 0 ? 0 : random.nextInt(layout.size) + 1;
+            boolean changed = values[cell] != value;
+            values[cell] = value;
+            counters.set(cell, value);
+
+            boolean[] dirty = new boolean[layout.cells];
+            counters.drainDirty(k -> dirty[k] = true);
+
+            boolean anyConflict = false;
+            for (int k = 0; k < layout.cells; k++) {
+                boolean valid = isValid(layout, values, k);
+                anyConflict |= !valid;
+                Check.isTrue(counters.isValid(k) == valid, "Validity of cell " + k + " after edit " + edit);
+                if (values[k] == 0)
+                    Check.equal(candidates(layout, values, k), counters.getCandidates(k), "Candidates of cell " + k);
+            }
+            Check.isTrue(dirty[cell] || !changed, "Edited cell " + cell + " was not marked dirty");
+            Check.isTrue(counters.hasConflicts() == anyConflict, "Conflicts after edit " + edit);
+            Check.isTrue(!counters.isComplete() || !anyConflict, "Complete with a conflict");
+        }
+    }
+
+    /*
+     * A solved board is complete, and emptying one cell makes it incomplete
+     */
+    private static void completesWithSolution() throws TimeoutException {
+        SolverEngine engine = new SolverEngine();
+        engine.load(Check.parse(SolverEngineTest.EASY));
+        engine.solve();
+
+        UnitCounters counters = new UnitCounters(BoardLayout.STANDARD);
+        for (int cell = 0; cell < SolverEngine.CELLS; cell++)
+            counters.set(cell, engine.getGrid()[cell]);
+        Check.isTrue(counters.isComplete(), "Solved board is not complete");
+
+        counters.set(40, 0);
+        Check.isTrue(!counters.isComplete(), "Board with an empty cell is complete");
+        Check.equal(1 << (engine.getGrid()[40] - 1), counters.getCandidates(40), "Only candidate of the emptied cell");
+    }
+
+    /*
+     * A filled cell is valid if no peer holds its value
+     */
+    private static boolean isValid(BoardLayout layout, int[] values, int cell) {
+        if (values[cell] == 0)
+            return true;
+        for (int other = 0; other < layout.cells; other++) {
+            if (other != cell && values[other] == values[cell] && isPeer(layout, cell, other))
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * The values, as bits (value - 1), that no peer of the cell holds
+     */
+    private static int candidates(BoardLayout layout, int[] values, int cell) {
+        int candidates = layout.allCandidates;
+        for (int other = 0; other < layout.cells; other++) {
+            if (other != cell && values[other] != 0 && isPeer(layout, cell, other))
+                candidates &= ~(1 << (values[other] - 1));
+        }
+        return candidates;
+    }
+
+    /*
+     * Returns true if two cells share a row, column or box
+     */
+    private static boolean isPeer(BoardLayout layout, int a, int b) {
+        return layout.rowOf[a] == layout.rowOf[b] || layout.columnOf[a] == layout.columnOf[b]
+                || layout.boxOf[a] == layout.boxOf[b];
+    }
+}
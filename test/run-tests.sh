@@ -0,0 +1,37 @@
+#!/bin/sh
+#
+# Compiles the sources together with the tests in this directory and runs
+# every *Test class. Stops at the first failed check with a non-zero exit.
+# The sources import JavaFX, so the SDK is needed to compile them. The
+# *FxTest classes start the toolkit, which needs a display, so they only
+# run when FX_TESTS is set. Without a display, FX_OPTS can pass them
+# -Dglass.platform=Monocle -Dmonocle.platform=Headless:
+#
+#     JAVAFX_LIB=/path/to/javafx-sdk/lib test/run-tests.sh [classes directory]
+#     FX_TESTS=1 JAVAFX_LIB=/path/to/javafx-sdk/lib test/run-tests.sh
+
+set -e
+
+if [ -z "$JAVAFX_LIB" ]; then
+    echo "Set JAVAFX_LIB to the lib directory of the JavaFX SDK" >&2
+    exit 1
+fi
+
+# The tests read and write files relative to the sources, like the application
+cd "$(dirname "$0")/.."
+
+CLASSES=${1:-test-classes}
+MODULES="--module-path $JAVAFX_LIB --add-modules javafx.controls,jdk.incubator.vector"
+
+javac $MODULES -d "$CLASSES" *.java test/*.java
+
+for test in test/*Test.java; do
+    name=$(basename "$test" .java)
+    case $name in
+        *FxTest)
+            [ -n "$FX_TESTS" ] || continue
+            java $MODULES $FX_OPTS -cp "$CLASSES" sudoku.$name ;;
+        *)
+            java $MODULES -cp "$CLASSES" sudoku.$name ;;
+    esac
+done